@@ -0,0 +1,112 @@
+package com.vdt2025.api_gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Response đã lưu cùng các chỉ thị Cache-Control của service:
+ * còn tươi trong max-age (hoặc s-maxage), sau đó vẫn dùng được thêm stale-while-revalidate giây
+ * trong lúc gateway làm mới ở nền.
+ */
+public record CachedResponse(HttpHeaders headers, byte[] body, long storedAt, long maxAgeMillis, long staleMillis) {
+    // Header gắn với kết nối, không được phát lại từ cache
+    private static final List<String> HOP_BY_HOP = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONTENT_LENGTH,
+            "Keep-Alive", HttpHeaders.UPGRADE, HttpHeaders.AGE);
+
+    /**
+     * Kiểm tra response theo Cache-Control và chỉ giữ lại các trường hợp gateway được phép dùng chung.
+     *
+     * @param varyHeaders Các header request đã có trong khóa cache; Vary ngoài danh sách này thì không cache.
+     * @return Chỉ thị cache, hoặc null nếu response không được cache.
+     */
+    static Directives cacheable(HttpStatusCode status, HttpHeaders headers, Set<String> varyHeaders) {
+        if (!HttpStatus.OK.equals(status) || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        for (String vary : headers.getVary()) {
+            if (!varyHeaders.contains(vary.toLowerCase(Locale.ROOT))) {
+                return null;
+            }
+        }
+        Directives directives = Directives.parse(headers.getCacheControl());
+        if (!directives.isPublic() || directives.noStore() || directives.noCache() || directives.maxAge() <= 0) {
+            return null;
+        }
+        return directives;
+    }
+
+    static CachedResponse of(HttpHeaders source, byte[] body, Directives directives, long now) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(source);
+        HOP_BY_HOP.forEach(headers::remove);
+        return new CachedResponse(HttpHeaders.readOnlyHttpHeaders(headers), body, now,
+                directives.maxAge() * 1000, directives.staleWhileRevalidate() * 1000);
+    }
+
+    public boolean isFresh(long now) {
+        return now - storedAt < maxAgeMillis;
+    }
+
+    public boolean isUsableStale(long now) {
+        return now - storedAt < maxAgeMillis + staleMillis;
+    }
+
+    public long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1000);
+    }
+
+    public long lifetimeMillis() {
+        return maxAgeMillis + staleMillis;
+    }
+
+    /**
+     * Các chỉ thị Cache-Control mà cache dùng chung quan tâm; s-maxage được ưu tiên hơn max-age.
+     */
+    record Directives(boolean isPublic, boolean noStore, boolean noCache, long maxAge, long staleWhileRevalidate) {
+        static Directives parse(String cacheControl) {
+            boolean isPublic = false;
+            boolean noStore = false;
+            boolean noCache = false;
+            long maxAge = 0;
+            Long sharedMaxAge = null;
+            long stale = 0;
+            if (Objects.nonNull(cacheControl)) {
+                for (String part : cacheControl.split(",")) {
+                    String directive = part.trim().toLowerCase(Locale.ROOT);
+                    if (directive.equals("public")) {
+                        isPublic = true;
+                    } else if (directive.equals("private")) {
+                        return new Directives(false, noStore, noCache, 0, 0);
+                    } else if (directive.equals("no-store")) {
+                        noStore = true;
+                    } else if (directive.equals("no-cache")) {
+                        noCache = true;
+                    } else if (directive.startsWith("max-age=")) {
+                        maxAge = seconds(directive);
+                    } else if (directive.startsWith("s-maxage=")) {
+                        sharedMaxAge = seconds(directive);
+                    } else if (directive.startsWith("stale-while-revalidate=")) {
+                        stale = seconds(directive);
+                    }
+                }
+            }
+            return new Directives(isPublic, noStore, noCache,
+                    Objects.nonNull(sharedMaxAge) ? sharedMaxAge : maxAge, stale);
+        }
+
+        private static long seconds(String directive) {
+            try {
+                return Math.max(0, Long.parseLong(directive.substring(directive.indexOf('=') + 1).replace("\"", "")));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}
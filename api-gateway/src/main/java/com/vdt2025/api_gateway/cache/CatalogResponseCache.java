@@ -0,0 +1,210 @@
+package com.vdt2025.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bộ nhớ cache response của gateway cho các trang danh mục/sản phẩm.
+ * Mỗi mục thuộc một nhóm (segment đầu của đường dẫn: products, categories). Khi product-service phát
+ * thay đổi trên kênh catalog-changed, cả nhóm bị xóa và generation của nhóm tăng lên, để response
+ * đang tải dở từ trước lúc thay đổi không được lưu đè dữ liệu cũ trở lại.
+ */
+@Component
+public class CatalogResponseCache {
+    private static final Logger log = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+    // Header request mà nội dung response có thể phụ thuộc (Vary), được đưa vào khóa cache
+    static final List<String> KEY_HEADERS = List.of(
+            HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ORIGIN,
+            HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS);
+    static final Set<String> VARY_HEADERS = KEY_HEADERS.stream()
+            .map(header -> header.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final ResponseCacheProperties properties;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final WebClient webClient;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private Cache<String, Entry> entries;
+    private Disposable subscription;
+
+    public CatalogResponseCache(ResponseCacheProperties properties,
+                                ReactiveRedisMessageListenerContainer listenerContainer,
+                                @LoadBalanced WebClient.Builder loadBalancedWebClientBuilder) {
+        this.properties = properties;
+        this.listenerContainer = listenerContainer;
+        this.webClient = loadBalancedWebClientBuilder.build();
+    }
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight().toBytes())
+                .weigher((String key, Entry entry) -> entry.response().body().length + key.length())
+                .expireAfter(new Expiry<String, Entry>() {
+                    // Giữ mục đến hết cửa sổ stale-while-revalidate, sau đó không còn dùng được
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(entry.response().lifetimeMillis());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return TimeUnit.MILLISECONDS.toNanos(entry.response().lifetimeMillis());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        subscription = listenerContainer.receive(ChannelTopic.of(properties.getInvalidationChannel()))
+                .map(ReactiveSubscription.Message::getMessage)
+                // Mất kết nối thì có thể đã lỡ thông điệp: xóa hết rồi đăng ký lại
+                .doOnError(ex -> {
+                    log.warn("Catalog invalidation subscription failed: {}", ex.getMessage());
+                    invalidateAll();
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(this::onCatalogChanged);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (Objects.nonNull(subscription)) {
+            subscription.dispose();
+        }
+    }
+
+    public String key(String routeId, ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (Objects.nonNull(query)) {
+            key.append('?').append(query);
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String header : KEY_HEADERS) {
+            key.append('\n').append(Objects.requireNonNullElse(headers.getFirst(header), ""));
+        }
+        return key.toString();
+    }
+
+    // Nhóm của đường dẫn đã bỏ tiền tố route, ví dụ /products/search -> products
+    public String tagOf(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        return slash < 0 ? trimmed : trimmed.substring(0, slash);
+    }
+
+    public CachedResponse get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return Objects.isNull(entry) ? null : entry.response();
+    }
+
+    public long generation(String tag) {
+        return generations.computeIfAbsent(tag, t -> new AtomicLong()).get();
+    }
+
+    /**
+     * Lưu response nếu Cache-Control cho phép và nhóm không bị thay đổi kể từ khi request bắt đầu.
+     */
+    public void store(String key, String tag, long generation, HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        if (body.length > properties.getMaxEntrySize().toBytes()) {
+            return;
+        }
+        CachedResponse.Directives directives = CachedResponse.cacheable(status, headers, VARY_HEADERS);
+        if (Objects.isNull(directives) || generation(tag) != generation) {
+            return;
+        }
+        entries.put(key, new Entry(tag, CachedResponse.of(headers, body, directives, System.currentTimeMillis())));
+    }
+
+    public boolean isCacheable(HttpStatusCode status, HttpHeaders headers) {
+        return Objects.nonNull(CachedResponse.cacheable(status, headers, VARY_HEADERS));
+    }
+
+    /**
+     * Làm mới một mục đã cũ ở nền với cùng header của request hiện tại (kể cả header định danh đã ký).
+     * Mỗi khóa chỉ có một lượt làm mới tại một thời điểm.
+     *
+     * @param target Địa chỉ đầy đủ trên service, ví dụ lb://product-service/products?page=0.
+     */
+    public void revalidate(String key, String tag, URI target, HttpHeaders requestHeaders) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        long generation = generation(tag);
+        URI uri = "lb".equalsIgnoreCase(target.getScheme())
+                ? URI.create("http" + target.toString().substring(2))
+                : target;
+        webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.addAll(requestHeaders);
+                    headers.remove(HttpHeaders.HOST);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                })
+                .exchangeToMono(response -> response.toEntity(byte[].class))
+                .timeout(properties.getRevalidateTimeout())
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(entity -> store(key, tag, generation, entity.getStatusCode(), entity.getHeaders(),
+                                Objects.requireNonNullElse(entity.getBody(), new byte[0])),
+                        ex -> log.debug("Could not revalidate {}: {}", key, ex.getMessage()));
+    }
+
+    // Nội dung thông điệp: các phạm vi bị thay đổi (products, products:category:{id}, categories)
+    void onCatalogChanged(String message) {
+        Set<String> tags = List.of(message.split(",")).stream()
+                .map(String::trim)
+                .filter(scope -> !scope.isEmpty())
+                .map(scope -> scope.contains(":") ? scope.substring(0, scope.indexOf(':')) : scope)
+                .collect(Collectors.toSet());
+        tags.forEach(this::invalidate);
+        log.debug("Invalidated cached catalog responses for {}", tags);
+    }
+
+    private void invalidate(String tag) {
+        generations.computeIfAbsent(tag, t -> new AtomicLong()).incrementAndGet();
+        entries.asMap().values().removeIf(entry -> entry.tag().equals(tag));
+    }
+
+    private void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.invalidateAll();
+    }
+
+    private record Entry(String tag, CachedResponse response) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.vdt2025.api_gateway.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.gateway.response-cache")
+public class ResponseCacheProperties {
+    // Tắt để mọi request đi thẳng xuống service
+    private boolean enabled = true;
+    // Tổng dung lượng body được giữ trong bộ nhớ
+    private DataSize maximumWeight = DataSize.ofMegabytes(64);
+    // Response lớn hơn mức này không được cache
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+    // Kênh Redis pub/sub mà product-service phát khi sản phẩm/danh mục thay đổi
+    private String invalidationChannel = "catalog-changed";
+    // Thời gian chờ tối đa khi làm mới một trang cũ ở nền
+    private Duration revalidateTimeout = Duration.ofSeconds(5);
+    // Chỉ trả trang cache cho request đã được JwtAuthenticationFilter xác thực, giống quy tắc của service
+    private boolean requireAuthentication = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public void setMaximumWeight(DataSize maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public DataSize getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(DataSize maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public String getInvalidationChannel() {
+        return invalidationChannel;
+    }
+
+    public void setInvalidationChannel(String invalidationChannel) {
+        this.invalidationChannel = invalidationChannel;
+    }
+
+    public Duration getRevalidateTimeout() {
+        return revalidateTimeout;
+    }
+
+    public void setRevalidateTimeout(Duration revalidateTimeout) {
+        this.revalidateTimeout = revalidateTimeout;
+    }
+
+    public boolean isRequireAuthentication() {
+        return requireAuthentication;
+    }
+
+    public void setRequireAuthentication(boolean requireAuthentication) {
+        this.requireAuthentication = requireAuthentication;
+    }
+}
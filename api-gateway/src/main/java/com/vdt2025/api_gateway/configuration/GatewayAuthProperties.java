@@ -0,0 +1,62 @@
+package com.vdt2025.api_gateway.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "app.gateway.auth")
+public class GatewayAuthProperties {
+    // Khóa HMAC dùng chung với các service phía sau để ký header định danh
+    private String identitySecret;
+    // Các đường dẫn gateway không xác thực token (token hết hạn vẫn được gửi tới để làm mới, đăng xuất)
+    private List<String> skipPaths = new ArrayList<>(List.of("/api/user/auth/**"));
+    // Tiền tố khóa Redis của tập token bị thu hồi, user-service ghi khi đăng xuất
+    private String revokedKeyPrefix = "jwt:revoked:";
+    // Thời gian tối đa một token đã xác thực chữ ký được dùng lại mà không giải mã lại
+    private Duration staleness = Duration.ofSeconds(30);
+    private long maximumSize = 10000;
+
+    public String getIdentitySecret() {
+        return identitySecret;
+    }
+
+    public void setIdentitySecret(String identitySecret) {
+        this.identitySecret = identitySecret;
+    }
+
+    public List<String> getSkipPaths() {
+        return skipPaths;
+    }
+
+    public void setSkipPaths(List<String> skipPaths) {
+        this.skipPaths = skipPaths;
+    }
+
+    public String getRevokedKeyPrefix() {
+        return revokedKeyPrefix;
+    }
+
+    public void setRevokedKeyPrefix(String revokedKeyPrefix) {
+        this.revokedKeyPrefix = revokedKeyPrefix;
+    }
+
+    public Duration getStaleness() {
+        return staleness;
+    }
+
+    public void setStaleness(Duration staleness) {
+        this.staleness = staleness;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+}
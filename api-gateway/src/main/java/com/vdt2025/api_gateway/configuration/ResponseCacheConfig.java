@@ -0,0 +1,26 @@
+package com.vdt2025.api_gateway.configuration;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class ResponseCacheConfig {
+
+    // Nhận thông điệp thay đổi danh mục/sản phẩm để hủy response đã cache
+    @Bean(destroyMethod = "destroy")
+    public ReactiveRedisMessageListenerContainer reactiveRedisMessageListenerContainer(
+            ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisMessageListenerContainer(connectionFactory);
+    }
+
+    // WebClient phân giải lb://service qua Eureka, dùng để làm mới response cũ ở nền
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+}
@@ -0,0 +1,173 @@
+package com.vdt2025.api_gateway.filter;
+
+import com.vdt2025.api_gateway.cache.CachedResponse;
+import com.vdt2025.api_gateway.cache.CatalogResponseCache;
+import com.vdt2025.api_gateway.cache.ResponseCacheProperties;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Cache response GET của route theo Cache-Control do service trả về:
+ * trong max-age trả thẳng từ bộ nhớ gateway (X-Cache: HIT), sau max-age nhưng còn trong
+ * stale-while-revalidate thì trả bản cũ (X-Cache: STALE) và làm mới ở nền.
+ * Khai báo sau StripPrefix để khóa cache là đường dẫn trên service.
+ */
+@Component
+public class CatalogCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    private final CatalogResponseCache responseCache;
+    private final ResponseCacheProperties properties;
+
+    public CatalogCacheGatewayFilterFactory(CatalogResponseCache responseCache, ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!properties.isEnabled() || !HttpMethod.GET.equals(request.getMethod())
+                    || (properties.isRequireAuthentication() && !isAuthenticated(request.getHeaders()))) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (Objects.isNull(route)) {
+                return chain.filter(exchange);
+            }
+
+            String key = responseCache.key(route.getId(), request);
+            String tag = responseCache.tagOf(request.getURI().getRawPath());
+            long now = System.currentTimeMillis();
+
+            // Client yêu cầu no-cache thì luôn hỏi service, nhưng vẫn lưu lại kết quả mới
+            if (!requestsNoCache(request.getHeaders())) {
+                CachedResponse cached = responseCache.get(key);
+                if (Objects.nonNull(cached) && cached.isFresh(now)) {
+                    return writeCached(exchange, cached, now, "HIT");
+                }
+                if (Objects.nonNull(cached) && cached.isUsableStale(now)) {
+                    responseCache.revalidate(key, tag, targetUri(route, request), request.getHeaders());
+                    return writeCached(exchange, cached, now, "STALE");
+                }
+            }
+
+            long generation = responseCache.generation(tag);
+            ServerHttpResponse decorated = new CachingResponse(exchange.getResponse(), key, tag, generation);
+            return chain.filter(exchange.mutate().response(decorated).build());
+        };
+    }
+
+    // Header định danh chỉ còn lại khi JwtAuthenticationFilter đã xác thực token
+    private boolean isAuthenticated(HttpHeaders headers) {
+        return StringUtils.hasText(headers.getFirst(IdentityHeaders.USER_NAME));
+    }
+
+    private boolean requestsNoCache(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return Objects.nonNull(cacheControl) && cacheControl.toLowerCase().contains("no-cache");
+    }
+
+    private URI targetUri(Route route, ServerHttpRequest request) {
+        URI routeUri = route.getUri();
+        String query = request.getURI().getRawQuery();
+        return URI.create(routeUri.getScheme() + "://" + routeUri.getRawAuthority()
+                + request.getURI().getRawPath() + (Objects.isNull(query) ? "" : "?" + query));
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, long now, String status) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(HttpHeaders.AGE, Long.toString(cached.ageSeconds(now)));
+        response.getHeaders().set(CACHE_STATUS_HEADER, status);
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    // Sao chép body của response có thể cache trong lúc chuyển tiếp, response khác được chuyển tiếp nguyên trạng
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final String key;
+        private final String tag;
+        private final long generation;
+
+        CachingResponse(ServerHttpResponse delegate, String key, String tag, long generation) {
+            super(delegate);
+            this.key = key;
+            this.tag = tag;
+            this.generation = generation;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!responseCache.isCacheable(getStatusCode(), getHeaders())) {
+                return super.writeWith(body);
+            }
+            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            long maxBytes = properties.getMaxEntrySize().toBytes();
+            // Đã biết trước body vượt giới hạn thì không cache, chuyển tiếp nguyên trạng
+            if (getHeaders().getContentLength() > maxBytes) {
+                return super.writeWith(body);
+            }
+            // Body vẫn được stream xuống client; bản sao dừng lại ngay khi vượt giới hạn
+            BoundedBodyCopy copy = new BoundedBodyCopy(maxBytes);
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = copy.toByteArray();
+                        if (Objects.nonNull(bytes)) {
+                            responseCache.store(key, tag, generation, getStatusCode(), getHeaders(), bytes);
+                        }
+                    }));
+        }
+    }
+
+    // Bản sao body tối đa maxBytes byte; trả về null khi body vượt giới hạn
+    private static class BoundedBodyCopy {
+        private final long maxBytes;
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        BoundedBodyCopy(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void append(DataBuffer buffer) {
+            if (Objects.isNull(bytes)) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (bytes.size() + (long) length > maxBytes) {
+                bytes = null;
+                return;
+            }
+            byte[] chunk = new byte[length];
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(chunk), 0, length);
+            bytes.writeBytes(chunk);
+        }
+
+        byte[] toByteArray() {
+            return Objects.isNull(bytes) ? null : bytes.toByteArray();
+        }
+    }
+}
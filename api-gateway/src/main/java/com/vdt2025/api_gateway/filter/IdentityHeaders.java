@@ -0,0 +1,50 @@
+package com.vdt2025.api_gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Các header định danh gateway gửi cho service phía sau sau khi đã xác thực JWT.
+ * Chữ ký là HMAC-SHA256 trên các giá trị nối bằng '\n', service phía sau tính lại với cùng khóa.
+ */
+public final class IdentityHeaders {
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_NAME = "X-User-Name";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String ISSUED_AT = "X-User-Issued-At";
+    public static final String EXPIRES_AT = "X-User-Expires-At";
+    public static final String TIMESTAMP = "X-Auth-Timestamp";
+    public static final String SIGNATURE = "X-Auth-Signature";
+
+    static final List<String> ALL = List.of(USER_ID, USER_NAME, USER_ROLES, ISSUED_AT, EXPIRES_AT, TIMESTAMP, SIGNATURE);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private IdentityHeaders() {
+    }
+
+    // Xóa mọi header định danh do client tự gửi lên
+    static void removeAll(HttpHeaders headers) {
+        ALL.forEach(headers::remove);
+    }
+
+    static String sign(String secret, String userId, String username, String roles,
+                       long issuedAt, long expiresAt, long timestamp) {
+        String payload = String.join("\n", userId, username, roles,
+                Long.toString(issuedAt), Long.toString(expiresAt), Long.toString(timestamp));
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.vdt2025.api_gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.vdt2025.api_gateway.configuration.GatewayAuthProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Xác thực JWT một lần tại gateway: kiểm tra chữ ký HS512, hạn dùng và tập token bị thu hồi trong Redis,
+ * rồi chuyển tiếp danh tính (id, username, vai trò) dưới dạng header đã ký để service phía sau
+ * không phải giải mã lại token. Request không có token được chuyển tiếp nguyên trạng cho các endpoint công khai.
+ */
+@Component
+public class JwtAuthenticationFilter implements GlobalFilter, Ordered {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String SCOPE_CLAIM = "scope";
+    private static final String UNAUTHENTICATED_BODY = "{\"code\":1102,\"message\":\"You are not authenticated\"}";
+
+    private final GatewayAuthProperties properties;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Value("${jwt.signerKey}")
+    private String signerKey;
+
+    private MACVerifier verifier;
+
+    // Cache token đã xác thực chữ ký, khóa là SHA-256 của token; trạng thái thu hồi vẫn được kiểm tra mỗi request
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtAuthenticationFilter(GatewayAuthProperties properties, ReactiveStringRedisTemplate redisTemplate) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    void init() throws JOSEException {
+        if (!StringUtils.hasText(properties.getIdentitySecret())) {
+            throw new IllegalStateException("app.gateway.auth.identity-secret must be configured");
+        }
+        verifier = new MACVerifier(signerKey.getBytes());
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    // Hết hạn theo exp của token nhưng không lâu hơn cửa sổ staleness
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        Duration untilExpiry = Duration.between(Instant.now(), token.expiresAt());
+                        Duration ttl = untilExpiry.compareTo(properties.getStaleness()) < 0
+                                ? untilExpiry : properties.getStaleness();
+                        return ttl.isNegative() ? 0 : ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String token = resolveToken(request.getHeaders());
+
+        // Không bao giờ tin các header định danh do client gửi lên
+        ServerHttpRequest.Builder forwarded = request.mutate().headers(IdentityHeaders::removeAll);
+        if (Objects.isNull(token) || isSkipped(request.getPath().value())) {
+            return chain.filter(exchange.mutate().request(forwarded.build()).build());
+        }
+
+        VerifiedToken verified = verifiedTokens.get(hash(token), key -> verify(token));
+        if (Objects.isNull(verified) || verified.expiresAt().isBefore(Instant.now())) {
+            return unauthorized(exchange);
+        }
+
+        return isRevoked(verified.jwtId())
+                .flatMap(revoked -> {
+                    if (revoked) {
+                        return unauthorized(exchange);
+                    }
+                    // Header Authorization vẫn được giữ để service phía sau gọi Feign tiếp với cùng token
+                    forwarded.headers(headers -> writeIdentity(headers, verified));
+                    return chain.filter(exchange.mutate().request(forwarded.build()).build());
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Chạy trước các filter định tuyến (StripPrefix, LoadBalancer) để khớp đường dẫn gốc
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    private String resolveToken(HttpHeaders headers) {
+        String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (Objects.isNull(authorization) || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private boolean isSkipped(String path) {
+        return properties.getSkipPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    // Trả về null nếu token sai chữ ký, sai thuật toán, thiếu claim bắt buộc hoặc đã hết hạn
+    private VerifiedToken verify(String token) {
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            if (!JWSAlgorithm.HS512.equals(signedJWT.getHeader().getAlgorithm()) || !signedJWT.verify(verifier)) {
+                return null;
+            }
+            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+            if (Objects.isNull(claims.getExpirationTime()) || Objects.isNull(claims.getSubject())
+                    || claims.getExpirationTime().toInstant().isBefore(Instant.now())) {
+                return null;
+            }
+            return new VerifiedToken(
+                    claims.getJWTID(),
+                    Objects.requireNonNullElse(claims.getStringClaim(USER_ID_CLAIM), ""),
+                    claims.getSubject(),
+                    Objects.requireNonNullElse(claims.getStringClaim(SCOPE_CLAIM), ""),
+                    Objects.isNull(claims.getIssueTime()) ? Instant.EPOCH : claims.getIssueTime().toInstant(),
+                    claims.getExpirationTime().toInstant());
+        } catch (ParseException | JOSEException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Redis lỗi thì không chặn toàn bộ lưu lượng: token vẫn bị giới hạn bởi hạn dùng ngắn của nó
+    private Mono<Boolean> isRevoked(String jwtId) {
+        if (Objects.isNull(jwtId)) {
+            return Mono.just(false);
+        }
+        return redisTemplate.hasKey(properties.getRevokedKeyPrefix() + jwtId)
+                .onErrorResume(ex -> {
+                    log.warn("Could not check token revocation in Redis: {}", ex.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private void writeIdentity(HttpHeaders headers, VerifiedToken token) {
+        long issuedAt = token.issuedAt().getEpochSecond();
+        long expiresAt = token.expiresAt().getEpochSecond();
+        long timestamp = Instant.now().getEpochSecond();
+        headers.set(IdentityHeaders.USER_ID, token.userId());
+        headers.set(IdentityHeaders.USER_NAME, token.username());
+        headers.set(IdentityHeaders.USER_ROLES, token.roles());
+        headers.set(IdentityHeaders.ISSUED_AT, Long.toString(issuedAt));
+        headers.set(IdentityHeaders.EXPIRES_AT, Long.toString(expiresAt));
+        headers.set(IdentityHeaders.TIMESTAMP, Long.toString(timestamp));
+        headers.set(IdentityHeaders.SIGNATURE, IdentityHeaders.sign(properties.getIdentitySecret(),
+                token.userId(), token.username(), token.roles(), issuedAt, expiresAt, timestamp));
+    }
+
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer body = response.bufferFactory().wrap(UNAUTHENTICATED_BODY.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(String jwtId, String userId, String username, String roles,
+                                 Instant issuedAt, Instant expiresAt) {
+    }
+}
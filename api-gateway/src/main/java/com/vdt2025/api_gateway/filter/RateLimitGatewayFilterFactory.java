@@ -0,0 +1,182 @@
+package com.vdt2025.api_gateway.filter;
+
+import com.vdt2025.api_gateway.ratelimit.RateLimitProperties;
+import com.vdt2025.api_gateway.ratelimit.TokenBucketRateLimiter;
+import com.vdt2025.api_gateway.ratelimit.TokenBucketRateLimiter.RateLimit;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Filter giới hạn tốc độ cấu hình theo từng route:
+ * <pre>
+ * filters:
+ *   - name: RateLimit
+ *     args:
+ *       replenish-rate: 20
+ *       burst-capacity: 40
+ * </pre>
+ * Request đã xác thực (có X-User-Id do JwtAuthenticationFilter gắn) được giới hạn theo người dùng,
+ * request ẩn danh được giới hạn theo IP với cấu hình anonymous-* (mặc định bằng cấu hình người dùng).
+ */
+@Component
+public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+    private static final String TOO_MANY_REQUESTS_BODY = "{\"code\":1429,\"message\":\"Too many requests\"}";
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    public RateLimitGatewayFilterFactory(TokenBucketRateLimiter rateLimiter, RateLimitProperties properties) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getReplenishRate() <= 0 || config.getBurstCapacity() <= 0) {
+            throw new IllegalArgumentException("RateLimit replenish-rate and burst-capacity must be positive");
+        }
+        RateLimit userLimit = config.userLimit();
+        RateLimit anonymousLimit = config.anonymousLimit();
+        return (exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = Objects.nonNull(route) ? route.getId() : "unknown";
+
+            String userKey = resolveUserKey(exchange.getRequest().getHeaders());
+            Mono<Boolean> allowed = Objects.nonNull(userKey)
+                    ? rateLimiter.tryAcquire(routeId, "user", userKey, userLimit)
+                    : rateLimiter.tryAcquire(routeId, "ip", resolveClientIp(exchange.getRequest()), anonymousLimit);
+            RateLimit limit = Objects.nonNull(userKey) ? userLimit : anonymousLimit;
+
+            return allowed.flatMap(ok -> ok ? chain.filter(exchange) : tooManyRequests(exchange, limit));
+        };
+    }
+
+    // userId có thể trống với token cũ, khi đó dùng username
+    private String resolveUserKey(HttpHeaders headers) {
+        String userId = headers.getFirst(IdentityHeaders.USER_ID);
+        if (StringUtils.hasText(userId)) {
+            return userId;
+        }
+        String username = headers.getFirst(IdentityHeaders.USER_NAME);
+        return StringUtils.hasText(username) ? username : null;
+    }
+
+    private String resolveClientIp(ServerHttpRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeaders().getFirst(FORWARDED_FOR);
+            if (StringUtils.hasText(forwardedFor)) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (Objects.isNull(remoteAddress) || Objects.isNull(remoteAddress.getAddress())) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress().getHostAddress();
+    }
+
+    private Mono<Void> tooManyRequests(ServerWebExchange exchange, RateLimit limit) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        // Thời gian (làm tròn lên theo giây) để bucket nạp lại một token
+        long retryAfter = Math.max(1, (long) Math.ceil(1.0 / limit.replenishRate()));
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        DataBuffer body = response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+
+    public static class Config {
+        // Giới hạn cho mỗi người dùng đã xác thực
+        private int replenishRate = 10;
+        private int burstCapacity = 20;
+        // Giới hạn cho mỗi IP ẩn danh, 0 nghĩa là dùng giới hạn người dùng
+        private int anonymousReplenishRate;
+        private int anonymousBurstCapacity;
+        // Số token mỗi replica nhận từ Redis một lần, 0 nghĩa là tự tính (khoảng 1/10 giây nạp)
+        private int leaseSize;
+
+        RateLimit userLimit() {
+            return new RateLimit(replenishRate, burstCapacity, lease(replenishRate, burstCapacity));
+        }
+
+        RateLimit anonymousLimit() {
+            int rate = anonymousReplenishRate > 0 ? anonymousReplenishRate : replenishRate;
+            int capacity = anonymousBurstCapacity > 0 ? anonymousBurstCapacity : burstCapacity;
+            return new RateLimit(rate, capacity, lease(rate, capacity));
+        }
+
+        // Lô lớn giảm số lần gọi Redis, nhưng token nằm ở replica này thì replica khác không dùng được
+        private int lease(int rate, int capacity) {
+            int size = leaseSize > 0 ? leaseSize : rate / 10;
+            return Math.max(1, Math.min(size, capacity));
+        }
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public int getAnonymousReplenishRate() {
+            return anonymousReplenishRate;
+        }
+
+        public void setAnonymousReplenishRate(int anonymousReplenishRate) {
+            this.anonymousReplenishRate = anonymousReplenishRate;
+        }
+
+        public int getAnonymousBurstCapacity() {
+            return anonymousBurstCapacity;
+        }
+
+        public void setAnonymousBurstCapacity(int anonymousBurstCapacity) {
+            this.anonymousBurstCapacity = anonymousBurstCapacity;
+        }
+
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.vdt2025.api_gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.gateway.rate-limit")
+public class RateLimitProperties {
+    // Tắt để bỏ qua toàn bộ filter RateLimit trên các route
+    private boolean enabled = true;
+    // Tiền tố khóa Redis của các bucket dùng chung
+    private String keyPrefix = "rate:";
+    // Chờ Redis tối đa chừng này, quá hạn thì giới hạn cục bộ trên replica
+    private Duration redisTimeout = Duration.ofMillis(50);
+    // Số bucket cục bộ tối đa (mỗi người dùng/IP trên mỗi route một bucket)
+    private long maximumKeys = 100000;
+    // Bucket cục bộ không được dùng trong khoảng này thì bị bỏ, token đã nhận nhưng chưa dùng cũng mất
+    private Duration idleTimeout = Duration.ofMinutes(1);
+    // Chỉ tin X-Forwarded-For khi gateway đứng sau load balancer do mình quản lý
+    private boolean trustForwardedFor = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public Duration getRedisTimeout() {
+        return redisTimeout;
+    }
+
+    public void setRedisTimeout(Duration redisTimeout) {
+        this.redisTimeout = redisTimeout;
+    }
+
+    public long getMaximumKeys() {
+        return maximumKeys;
+    }
+
+    public void setMaximumKeys(long maximumKeys) {
+        this.maximumKeys = maximumKeys;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public boolean isTrustForwardedFor() {
+        return trustForwardedFor;
+    }
+
+    public void setTrustForwardedFor(boolean trustForwardedFor) {
+        this.trustForwardedFor = trustForwardedFor;
+    }
+}
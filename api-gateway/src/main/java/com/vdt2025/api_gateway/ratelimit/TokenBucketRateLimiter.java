@@ -0,0 +1,166 @@
+package com.vdt2025.api_gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket hai tầng: bucket dùng chung trong Redis giữ ngân sách chung cho mọi replica gateway,
+ * mỗi replica nhận token theo lô (lease) và tiêu dần trong bộ nhớ, nên phần lớn request được quyết định
+ * mà không cần gọi Redis. Khi Redis báo hết token, khóa bị chặn cục bộ đến lúc có token mới
+ * để client lạm dụng không kéo theo một lệnh Redis mỗi request.
+ * Redis lỗi hoặc chậm thì mỗi replica tự giới hạn bằng bucket cục bộ với cùng cấu hình.
+ */
+@Component
+public class TokenBucketRateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(TokenBucketRateLimiter.class);
+    static final String REJECTED_METRIC = "gateway.ratelimit.rejected";
+    static final String FALLBACK_METRIC = "gateway.ratelimit.fallback";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RedisScript<Long> script = RedisScript.of(new ClassPathResource("scripts/token_bucket.lua"), Long.class);
+
+    private Cache<String, LocalBucket> buckets;
+
+    public TokenBucketRateLimiter(ReactiveStringRedisTemplate redisTemplate, RateLimitProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumKeys())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Lấy một token cho khóa trên route.
+     *
+     * @param keyType Loại khóa (user, ip), dùng làm tag cho metric.
+     * @return true nếu request được phép đi tiếp.
+     */
+    public Mono<Boolean> tryAcquire(String routeId, String keyType, String key, RateLimit limit) {
+        String bucketKey = routeId + ":" + keyType + ":" + key;
+        long now = System.nanoTime();
+        LocalBucket bucket = buckets.get(bucketKey, k -> new LocalBucket(limit.burstCapacity(), now));
+
+        // Đường nhanh: còn token đã nhận từ Redis, hoặc khóa đang bị chặn sau lần Redis báo hết
+        if (bucket.tryTakeLeased()) {
+            return Mono.just(true);
+        }
+        if (bucket.isBlocked(now)) {
+            return Mono.just(reject(routeId, keyType));
+        }
+
+        return redisTemplate.execute(script, List.of(properties.getKeyPrefix() + bucketKey),
+                        List.of(Integer.toString(limit.replenishRate()),
+                                Integer.toString(limit.burstCapacity()),
+                                Integer.toString(limit.leaseSize())))
+                .next()
+                .timeout(properties.getRedisTimeout())
+                .map(granted -> {
+                    if (granted > 0) {
+                        bucket.grant(granted - 1);
+                        return true;
+                    }
+                    // Chờ đủ thời gian để bucket chung nạp lại một token rồi mới hỏi Redis tiếp
+                    bucket.block(System.nanoTime() + TimeUnit.SECONDS.toNanos(1) / limit.replenishRate());
+                    return reject(routeId, keyType);
+                })
+                .onErrorResume(ex -> {
+                    log.debug("Rate limiter falls back to local bucket for {}: {}", routeId, ex.getMessage());
+                    Counter.builder(FALLBACK_METRIC)
+                            .description("Rate limit decisions made locally because Redis was unavailable")
+                            .tag("route", routeId)
+                            .register(meterRegistry)
+                            .increment();
+                    boolean allowed = bucket.tryTakeLocal(limit.replenishRate(), limit.burstCapacity(), System.nanoTime());
+                    return Mono.just(allowed || reject(routeId, keyType));
+                });
+    }
+
+    private boolean reject(String routeId, String keyType) {
+        Counter.builder(REJECTED_METRIC)
+                .description("Requests rejected by the gateway rate limiter")
+                .tag("route", routeId)
+                .tag("key", keyType)
+                .register(meterRegistry)
+                .increment();
+        return false;
+    }
+
+    /**
+     * Cấu hình giới hạn của một loại khóa trên route.
+     *
+     * @param replenishRate Số token nạp lại mỗi giây.
+     * @param burstCapacity Số token tối đa, tức số request dồn dập được chấp nhận.
+     * @param leaseSize     Số token mỗi replica nhận từ Redis một lần.
+     */
+    public record RateLimit(int replenishRate, int burstCapacity, int leaseSize) {
+    }
+
+    // Trạng thái cục bộ của một khóa trên replica này
+    static final class LocalBucket {
+        // Token đã lấy từ bucket chung, chưa dùng
+        private long leased;
+        // Thời điểm (nanoTime) được hỏi lại Redis sau khi bị từ chối
+        private long blockedUntil;
+        // Bucket cục bộ chỉ dùng khi Redis không trả lời
+        private double tokens;
+        private long refilledAt;
+
+        LocalBucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.refilledAt = now;
+            this.blockedUntil = now;
+        }
+
+        synchronized boolean tryTakeLeased() {
+            if (leased > 0) {
+                leased--;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isBlocked(long now) {
+            return now - blockedUntil < 0;
+        }
+
+        synchronized void grant(long extra) {
+            leased += extra;
+        }
+
+        synchronized void block(long until) {
+            blockedUntil = until;
+        }
+
+        synchronized boolean tryTakeLocal(int rate, int capacity, long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- Token bucket dùng chung giữa các replica gateway.
+-- Lấy tối đa ARGV[3] token (một "lô" cấp cho replica), trả về số token thực sự được cấp.
+-- KEYS[1]: hash chứa số token còn lại và thời điểm nạp gần nhất
+-- ARGV[1]: tốc độ nạp (token/giây), ARGV[2]: dung lượng tối đa, ARGV[3]: số token muốn lấy
+local key = KEYS[1]
+local rate = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+-- Dùng đồng hồ của Redis để các replica không lệch thời gian với nhau
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local last = tonumber(state[2])
+if tokens == nil or last == nil then
+  tokens = capacity
+  last = now
+end
+
+local elapsed = math.max(0, now - last)
+tokens = math.min(capacity, tokens + elapsed * rate / 1000)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+
+redis.call('HSET', key, 'tokens', tostring(tokens), 'ts', tostring(now))
+-- Bucket đầy lại sau capacity / rate giây, sau đó khóa không còn cần thiết
+redis.call('PEXPIRE', key, math.ceil(capacity * 1000 / rate) * 2)
+return granted
@@ -0,0 +1,14 @@
+package com.vdt2025.common_dto.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserChangedEvent {
+    String id;
+    String username;
+}
@@ -3,9 +3,11 @@ package com.vdt2025.file_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients(basePackages = "com.vdt2025.common_dto")
+@EnableScheduling
 public class FileServiceApplication {
 
 	public static void main(String[] args) {
@@ -1,13 +1,24 @@
 package com.vdt2025.file_service.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Objects;
 
 @Component
@@ -18,10 +29,24 @@ public class CustomJwtDecoder implements JwtDecoder {
 //    @Autowired
 //    private AuthenticationService authenticationService;
 
+    // Thời gian tối đa một token đã xác thực được dùng lại mà không kiểm tra lại
+    @Value("${jwt.decode-cache.staleness:PT30S}")
+    private Duration staleness;
+
+    @Value("${jwt.decode-cache.maximum-size:10000}")
+    private long maximumSize;
+
     private NimbusJwtDecoder nimbusJwtDecoder = null;
 
+    // Cache kết quả giải mã, khóa là SHA-256 của token để không giữ token gốc trong bộ nhớ
+    private Cache<String, Jwt> decodedTokens;
+
     @Override
     public Jwt decode(String token) {
+        return decodedTokens.get(hash(token), key -> verifyAndDecode(token));
+    }
+
+    private Jwt verifyAndDecode(String token) {
 //        try {
 //            // dùng service introspect xem token còn hiệu lực không
 //            var response = authenticationService.introspect(IntrospectRequest.builder()
@@ -44,4 +69,44 @@ public class CustomJwtDecoder implements JwtDecoder {
         }
         return nimbusJwtDecoder.decode(token);
     }
+
+    @PostConstruct
+    void initDecodedTokens() {
+        decodedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    // Hết hạn theo exp của token nhưng không lâu hơn cửa sổ staleness
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        Duration ttl = staleness;
+                        if (Objects.nonNull(jwt.getExpiresAt())) {
+                            Duration untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt());
+                            if (untilExpiry.compareTo(ttl) < 0) {
+                                ttl = untilExpiry.isNegative() ? Duration.ZERO : untilExpiry;
+                            }
+                        }
+                        return ttl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new BadJwtException(e.getMessage());
+        }
+    }
 }
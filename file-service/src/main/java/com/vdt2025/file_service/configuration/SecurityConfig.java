@@ -1,5 +1,6 @@
 package com.vdt2025.file_service.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,8 +13,14 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+import java.util.Objects;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -39,6 +46,14 @@ public class SecurityConfig {
 
     CustomJwtDecoder customJwtDecoder;
 
+    // Khóa HMAC dùng chung với api-gateway để kiểm tra header định danh, để trống thì không tin header
+    @Value("${app.gateway-identity.secret:}")
+    String gatewayIdentitySecret;
+
+    // Độ lệch tối đa giữa thời điểm gateway ký header và lúc service nhận request
+    @Value("${app.gateway-identity.max-skew:PT60S}")
+    Duration gatewayIdentityMaxSkew;
+
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity httpSecurity) throws Exception {
@@ -54,8 +69,12 @@ public class SecurityConfig {
                                 .requestMatchers(HttpMethod.POST, PUBLIC_POST_ENDPOINTS).permitAll()
                                 // All other requests need authentication
                                 .anyRequest().authenticated())
+                // Request đã qua gateway được xác thực bằng header đã ký, không giải mã lại JWT
+                .addFilterBefore(new GatewayIdentityFilter(gatewayIdentitySecret, gatewayIdentityMaxSkew,
+                        jwtAuthenticationConverter()), BearerTokenAuthenticationFilter.class)
                 .oauth2ResourceServer(oauth2 ->
-                        oauth2.jwt(jwtConfigurer ->
+                        oauth2.bearerTokenResolver(bearerTokenResolver())
+                                .jwt(jwtConfigurer ->
                                         jwtConfigurer.decoder(customJwtDecoder)
                                                 .jwtAuthenticationConverter(jwtAuthenticationConverter()))
                                 .authenticationEntryPoint(new JwtAuthenticationEntryPoint()))
@@ -74,6 +93,14 @@ public class SecurityConfig {
         return jwtAuthenticationConverter;
     }
 
+    // Bỏ qua token Bearer khi GatewayIdentityFilter đã thiết lập danh tính cho request
+    private BearerTokenResolver bearerTokenResolver() {
+        DefaultBearerTokenResolver delegate = new DefaultBearerTokenResolver();
+        return request -> Objects.nonNull(request.getAttribute(GatewayIdentityFilter.AUTHENTICATED_ATTRIBUTE))
+                ? null
+                : delegate.resolve(request);
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -0,0 +1,22 @@
+package com.vdt2025.file_service.configuration;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.user-cache")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserCacheProperties {
+    // Số người dùng tối đa được giữ trong cache cục bộ
+    long maximumSize = 10_000;
+    // Thời gian sống của một bản ghi, hết hạn thì gọi lại user-service
+    Duration ttl = Duration.ofMinutes(5);
+}
@@ -11,15 +11,6 @@ import org.springframework.web.util.UrlPathHelper;
 public class WebConfig implements WebMvcConfigurer {
     private final UserStatusInterceptor userStatusInterceptor;
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Chỉ map URL /uploads/public/** tới thư mục uploads/public/
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:uploads/");
-
-        // Không map /uploads/private/** để buộc phải qua controller với authentication
-    }
-
     @Override
     public void configurePathMatch(PathMatchConfigurer configurer) {
         UrlPathHelper urlPathHelper = new UrlPathHelper();
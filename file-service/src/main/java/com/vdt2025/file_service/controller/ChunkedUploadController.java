@@ -0,0 +1,72 @@
+package com.vdt2025.file_service.controller;
+
+import com.vdt2025.common_dto.dto.response.ApiResponse;
+import com.vdt2025.file_service.dto.UploadSessionRequest;
+import com.vdt2025.file_service.dto.UploadSessionResponse;
+import com.vdt2025.file_service.service.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Tải lên file lớn theo chunk:
+ * 1. POST /files/upload-sessions tạo phiên, nhận id và chunkSize.
+ * 2. PUT /files/upload-sessions/{id}?offset=... với body là dữ liệu thô của chunk (có thể gửi song song).
+ * 3. GET /files/upload-sessions/{id} xem các chunk đã nhận để tiếp tục khi bị gián đoạn.
+ * 4. POST /files/upload-sessions/{id}/complete ghép xong và trả về tên file.
+ */
+@RestController
+@RequestMapping("/files/upload-sessions")
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ApiResponse<UploadSessionResponse> createSession(@RequestBody @Valid UploadSessionRequest request) {
+        return ApiResponse.<UploadSessionResponse>builder()
+                .result(chunkedUploadService.createSession(request))
+                .message("Upload session created successfully.")
+                .build();
+    }
+
+    // Đọc thẳng luồng body của request, không để Spring đệm qua multipart
+    @PutMapping("/{sessionId}")
+    public ApiResponse<String> uploadChunk(@PathVariable String sessionId,
+                                           @RequestParam long offset,
+                                           HttpServletRequest request) throws IOException {
+        chunkedUploadService.writeChunk(sessionId, offset, request.getContentLengthLong(), request.getInputStream());
+        return ApiResponse.<String>builder()
+                .message("Chunk at offset " + offset + " uploaded successfully.")
+                .build();
+    }
+
+    @GetMapping("/{sessionId}")
+    public ApiResponse<UploadSessionResponse> getSession(@PathVariable String sessionId) {
+        return ApiResponse.<UploadSessionResponse>builder()
+                .result(chunkedUploadService.getSession(sessionId))
+                .build();
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ApiResponse<String> complete(@PathVariable String sessionId) {
+        String fileName = chunkedUploadService.complete(sessionId);
+        return ApiResponse.<String>builder()
+                .result(fileName)
+                .message("File uploaded successfully.")
+                .build();
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ApiResponse<String> abort(@PathVariable String sessionId) {
+        chunkedUploadService.abort(sessionId);
+        return ApiResponse.<String>builder()
+                .message("Upload session aborted.")
+                .build();
+    }
+}
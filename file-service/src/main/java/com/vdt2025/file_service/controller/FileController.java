@@ -1,20 +1,18 @@
 package com.vdt2025.file_service.controller;
 
 import com.vdt2025.common_dto.dto.response.ApiResponse;
+import com.vdt2025.file_service.service.FileDownloadService;
 import com.vdt2025.file_service.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
 
 @RestController
 @RequestMapping("/files")
@@ -23,6 +21,7 @@ import java.nio.file.Files;
 public class FileController {
 
     private final FileStorageService fileStorageService;
+    private final FileDownloadService fileDownloadService;
 
     /**
      * Endpoint để tải lên một tệp tin.
@@ -50,27 +49,17 @@ public class FileController {
 
     /**
      * Endpoint để tải xuống một tệp tin.
-     * Đây là cách viết đúng, sử dụng ResponseEntity<Resource>.
+     * Hỗ trợ GET có điều kiện (ETag/Last-Modified), Range một hoặc nhiều đoạn, gửi nội dung bằng sendfile.
      *
      * @param fileName Tên file cần tải, lấy từ URL path.
-     * @return ResponseEntity chứa nội dung file và các header cần thiết.
+     * @param size     Tên kích thước biến thể ảnh (thumb, small, medium, large), bỏ trống để lấy file gốc.
      */
     @GetMapping("/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName) {
-        Resource resource = fileStorageService.loadFile(fileName);
-
-        // Cố gắng xác định Content-Type của file
-        String contentType = "application/octet-stream"; // Giá trị mặc định
-        try {
-            contentType = Files.probeContentType(resource.getFile().toPath());
-        } catch (IOException ex) {
-            log.warn("Could not determine file type for file: {}", fileName);
-        }
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                .body(resource);
+    public void downloadFile(@PathVariable String fileName,
+                             @RequestParam(required = false) String size,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        fileDownloadService.serve(fileName, false, size, request, response);
     }
 
     /**
@@ -84,6 +73,7 @@ public class FileController {
     @PreAuthorize("hasRole('ADMIN')")
     public ApiResponse<String> deleteFile(@PathVariable String fileName) {
         fileStorageService.deleteFile(fileName);
+        fileDownloadService.evict(fileName);
         return ApiResponse.<String>builder()
                 .message("File '" + fileName + "' has been deleted successfully.")
                 .build();
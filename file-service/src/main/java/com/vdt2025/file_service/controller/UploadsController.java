@@ -0,0 +1,32 @@
+package com.vdt2025.file_service.controller;
+
+import com.vdt2025.file_service.service.FileDownloadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Đường dẫn công khai /uploads/{fileName} (ảnh sản phẩm, avatar).
+ * Tham số size (thumb, small, medium, large) trả về ảnh đã thu nhỏ thay cho ảnh gốc.
+ * Tên file là tên logic, nội dung có thể nằm trong kho blob nên không map thẳng thư mục lên static resource.
+ */
+@RestController
+@RequiredArgsConstructor
+public class UploadsController {
+
+    private final FileDownloadService fileDownloadService;
+
+    @GetMapping("/uploads/{fileName:.+}")
+    public void serveUpload(@PathVariable String fileName,
+                            @RequestParam(required = false) String size,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        fileDownloadService.serve(fileName, true, size, request, response);
+    }
+}
@@ -0,0 +1,19 @@
+package com.vdt2025.file_service.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AuthenticatedUser {
+    String id;
+    String username;
+    String role;
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
@@ -0,0 +1,22 @@
+package com.vdt2025.file_service.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.nio.file.Path;
+
+// Thông tin cần để phục vụ tải file, lấy từ UploadedFile và được cache lại
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FileMetadata {
+    Path path;
+    String contentType;
+    long size;
+    // Tên hiển thị khi tải về
+    String downloadName;
+    String etag;
+    long lastModified;
+}
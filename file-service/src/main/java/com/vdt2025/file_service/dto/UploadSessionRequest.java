@@ -0,0 +1,19 @@
+package com.vdt2025.file_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionRequest {
+    @NotBlank(message = "INVALID_FILE_NAME")
+    String fileName;
+    String contentType;
+    @Positive(message = "FILE_IS_EMPTY")
+    long totalSize;
+}
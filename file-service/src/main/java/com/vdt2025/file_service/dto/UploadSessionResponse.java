@@ -0,0 +1,23 @@
+package com.vdt2025.file_service.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Trạng thái phiên tải lên, client dùng receivedChunks để chỉ gửi lại các chunk còn thiếu
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionResponse {
+    String id;
+    String fileName;
+    long totalSize;
+    int chunkSize;
+    int totalChunks;
+    List<Integer> receivedChunks;
+    LocalDateTime expiresAt;
+}
@@ -0,0 +1,27 @@
+package com.vdt2025.file_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Nội dung file lưu một lần theo SHA-256, nhiều UploadedFile có thể trỏ tới cùng một blob
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+public class FileBlob {
+    @Id
+    String digest;
+    long size;
+    // Số UploadedFile đang tham chiếu tới blob, về 0 thì xóa blob
+    @Column(nullable = false)
+    int refCount;
+    LocalDateTime createdAt;
+}
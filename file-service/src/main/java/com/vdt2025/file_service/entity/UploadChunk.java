@@ -0,0 +1,24 @@
+package com.vdt2025.file_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Chunk đã nhận đủ của một phiên tải lên, id = {sessionId}:{chunkIndex} để gửi lại cùng chunk không tạo bản ghi trùng
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(indexes = @Index(name = "idx_upload_chunk_session_id", columnList = "sessionId"))
+public class UploadChunk {
+    @Id
+    String id;
+
+    @Column(nullable = false)
+    String sessionId;
+    int chunkIndex;
+    long size;
+}
@@ -0,0 +1,44 @@
+package com.vdt2025.file_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Phiên tải lên theo chunk: nội dung được ghi thẳng vào file tạm đã cấp phát sẵn kích thước
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(indexes = @Index(name = "idx_upload_session_expires_at", columnList = "expiresAt"))
+public class UploadSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    String id;
+
+    String originalFileName;
+    String contentType;
+    @Column(nullable = false)
+    long totalSize;
+    // Kích thước mỗi chunk, chunk cuối có thể nhỏ hơn
+    @Column(nullable = false)
+    int chunkSize;
+
+    String uploadedBy;
+    LocalDateTime createdAt;
+    // Quá hạn mà chưa hoàn tất thì phiên và file tạm bị dọn
+    LocalDateTime expiresAt;
+
+    public int getTotalChunks() {
+        return (int) ((totalSize + chunkSize - 1) / chunkSize);
+    }
+
+    // Kích thước mong đợi của chunk thứ index
+    public long expectedChunkSize(int index) {
+        return Math.min(chunkSize, totalSize - (long) index * chunkSize);
+    }
+}
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@Table(indexes = @Index(name = "idx_uploaded_file_blob_digest", columnList = "blobDigest"))
 public class UploadedFile {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -27,4 +28,7 @@ public class UploadedFile {
 
     // Mối quan hệ với User
     String uploadedBy;
+
+    // SHA-256 của nội dung khi lưu theo nội dung (FileBlob), null với file lưu theo tên cũ
+    String blobDigest;
 }
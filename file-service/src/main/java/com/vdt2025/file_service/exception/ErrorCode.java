@@ -33,6 +33,13 @@ public enum ErrorCode {
     INVALID_FILE_PATH(1306, "Filename contains invalid path sequence.", HttpStatus.BAD_REQUEST),
     FILE_STORAGE_INIT_ERROR(1307, "Could not initialize file storage.", HttpStatus.INTERNAL_SERVER_ERROR),
     INVALID_FILE_NAME(1308, "Invalid file name.", HttpStatus.BAD_REQUEST),
+    FILE_CANNOT_READ(1309, "File cannot be read.", HttpStatus.INTERNAL_SERVER_ERROR),
+    UPLOAD_SESSION_NOT_FOUND(1310, "Upload session not found or expired.", HttpStatus.NOT_FOUND),
+    INVALID_CHUNK(1311, "Chunk offset or length does not match the upload session.", HttpStatus.BAD_REQUEST),
+    UPLOAD_INCOMPLETE(1312, "Not all chunks have been uploaded.", HttpStatus.CONFLICT),
+    FILE_TOO_LARGE(1313, "File exceeds the maximum allowed size.", HttpStatus.PAYLOAD_TOO_LARGE),
+    INVALID_IMAGE_SIZE(1314, "Unknown image size.", HttpStatus.BAD_REQUEST),
+    IMAGE_VARIANT_UNAVAILABLE(1315, "Image variant is being generated, please retry.", HttpStatus.SERVICE_UNAVAILABLE),
     // Lỗi vai trò (14xx)
     ROLE_NOT_FOUND(1401, "Role not found", HttpStatus.NOT_FOUND),
     ROLE_EXISTED(1402, "Role already exists", HttpStatus.CONFLICT),
@@ -1,9 +1,9 @@
 package com.vdt2025.file_service.interceptor;
 
 import com.vdt2025.common_dto.dto.response.UserResponse;
-import com.vdt2025.common_dto.service.UserServiceClient;
 import com.vdt2025.file_service.exception.AppException;
 import com.vdt2025.file_service.exception.ErrorCode;
+import com.vdt2025.file_service.service.UserLookupService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +16,8 @@ import org.springframework.web.servlet.HandlerInterceptor;
 @Component
 @RequiredArgsConstructor
 public class UserStatusInterceptor implements HandlerInterceptor {
-    UserServiceClient userServiceClient;
+    private final UserLookupService userLookupService;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -31,7 +32,7 @@ public class UserStatusInterceptor implements HandlerInterceptor {
 
         // For regular authenticated users, check if their account is enabled
         String username = authentication.getName();
-        UserResponse user = userServiceClient.getUserByUsername(username).getResult();
+        UserResponse user = userLookupService.getUserByUsername(username);
 
         if (!user.isEnabled()) {
             throw new AppException(ErrorCode.USER_DISABLED);
@@ -0,0 +1,29 @@
+package com.vdt2025.file_service.repository;
+
+import com.vdt2025.file_service.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+    // Khóa advisory theo digest, giữ đến hết transaction: tuần tự hóa việc tăng/giảm tham chiếu
+    // và việc đặt/xóa file blob trên đĩa của cùng một nội dung
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended(:digest, 0))) AS blob_lock",
+            nativeQuery = true)
+    Integer lock(@Param("digest") String digest);
+
+    // Tạo blob mới hoặc tăng số tham chiếu trong một câu lệnh, an toàn khi hai lượt tải lên cùng nội dung chạy song song
+    @Modifying
+    @Query(value = "INSERT INTO file_blob (digest, size, ref_count, created_at) VALUES (:digest, :size, 1, now()) " +
+            "ON CONFLICT (digest) DO UPDATE SET ref_count = file_blob.ref_count + 1", nativeQuery = true)
+    void acquire(@Param("digest") String digest, @Param("size") long size);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.digest = :digest")
+    int release(@Param("digest") String digest);
+
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.digest = :digest AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("digest") String digest);
+}
@@ -0,0 +1,31 @@
+package com.vdt2025.file_service.repository;
+
+import com.vdt2025.file_service.entity.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, String> {
+    // Ghi nhận chunk, bỏ qua nếu client gửi lại chunk đã nhận
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO upload_chunk (id, session_id, chunk_index, size) " +
+            "VALUES (:sessionId || ':' || :chunkIndex, :sessionId, :chunkIndex, :size) " +
+            "ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+    void markReceived(@Param("sessionId") String sessionId,
+                      @Param("chunkIndex") int chunkIndex,
+                      @Param("size") long size);
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.sessionId = :sessionId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("sessionId") String sessionId);
+
+    long countBySessionId(String sessionId);
+
+    @Modifying
+    @Query("DELETE FROM UploadChunk c WHERE c.sessionId = :sessionId")
+    void deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,170 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.file_service.repository.FileBlobRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Kho nội dung theo địa chỉ (content-addressed): mỗi nội dung được lưu một lần tại
+ * blobs/{2 ký tự đầu}/{2 ký tự tiếp}/{sha256}, số tham chiếu nằm trong bảng file_blob.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BlobStore {
+    static final String BLOB_DIRECTORY = "blobs";
+
+    FileBlobRepository fileBlobRepository;
+    ImageVariantService imageVariantService;
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * Ghi nội dung vào kho, băm SHA-256 trong lúc ghi xuống đĩa (chỉ đọc luồng dữ liệu một lần).
+     *
+     * @return digest của nội dung.
+     */
+    public String store(Path root, InputStream content) throws IOException {
+        Path tempFile = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest messageDigest = newDigest();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, messageDigest)) {
+                size = Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return place(root, tempFile, HexFormat.of().formatHex(messageDigest.digest()), size);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Đưa một file đã ghi sẵn trên đĩa (ví dụ file ghép từ các chunk) vào kho.
+     * File nguồn được đổi tên thành blob nếu nội dung chưa có, không sao chép lại dữ liệu.
+     *
+     * @return digest của nội dung.
+     */
+    public String storeFile(Path root, Path source) throws IOException {
+        try {
+            MessageDigest messageDigest = newDigest();
+            try (DigestInputStream in = new DigestInputStream(Files.newInputStream(source), messageDigest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return place(root, source, HexFormat.of().formatHex(messageDigest.digest()), Files.size(source));
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    /*
+     * Khóa digest, tăng tham chiếu rồi mới đặt file. Khóa giữ đến khi transaction kết thúc nên lượt dọn blob
+     * (cũng lấy khóa này) chỉ chạy sau khi bản ghi của lượt tải lên đã commit hoặc đã rollback.
+     */
+    private String place(Path root, Path file, String digest, long size) throws IOException {
+        fileBlobRepository.lock(digest);
+        fileBlobRepository.acquire(digest, size);
+        Path blobPath = resolve(root, digest);
+        if (Files.exists(blobPath)) {
+            log.info("Deduplicated upload, reusing blob {}", digest);
+        } else {
+            Files.createDirectories(blobPath.getParent());
+            Files.move(file, blobPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Transaction rollback thì bản ghi không còn, blob vừa đặt sẽ bị bỏ rơi nếu không dọn
+            runAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK, () -> deleteIfOrphaned(root, digest));
+        }
+        return digest;
+    }
+
+    /**
+     * Giảm số tham chiếu, xóa blob trên đĩa khi không còn UploadedFile nào dùng.
+     * Việc xóa file vật lý chỉ làm sau khi transaction commit.
+     */
+    public void release(Path root, String digest) {
+        fileBlobRepository.lock(digest);
+        fileBlobRepository.release(digest);
+        if (fileBlobRepository.deleteIfUnreferenced(digest) == 0) {
+            return;
+        }
+        runAfterCompletion(TransactionSynchronization.STATUS_COMMITTED, () -> deleteIfOrphaned(root, digest));
+    }
+
+    /*
+     * Xóa blob trên đĩa nếu không còn bản ghi file_blob, trong một transaction mới giữ khóa digest:
+     * lượt tải lên cùng nội dung đang chạy phải commit (bản ghi thấy được) hoặc rollback trước khi kiểm tra,
+     * và lượt tải lên đến sau phải đợi file được xóa xong rồi mới kiểm tra file tồn tại.
+     */
+    private void deleteIfOrphaned(Path root, String digest) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                fileBlobRepository.lock(digest);
+                if (fileBlobRepository.existsById(digest)) {
+                    return;
+                }
+                Path blobPath = resolve(root, digest);
+                try {
+                    Files.deleteIfExists(blobPath);
+                    imageVariantService.deleteVariants(blobPath);
+                    log.info("Blob {} removed, no references left", digest);
+                } catch (IOException ex) {
+                    log.warn("Could not delete blob {}", digest, ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Blob còn lại trên đĩa chỉ tốn dung lượng, không làm hỏng dữ liệu
+            log.warn("Could not clean up blob {}: {}", digest, ex.getMessage());
+        }
+    }
+
+    private void runAfterCompletion(int expectedStatus, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (expectedStatus == TransactionSynchronization.STATUS_COMMITTED) {
+                action.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == expectedStatus) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    public Path resolve(Path root, String digest) {
+        return root.resolve(BLOB_DIRECTORY)
+                .resolve(digest.substring(0, 2))
+                .resolve(digest.substring(2, 4))
+                .resolve(digest);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.file_service.dto.UploadSessionRequest;
+import com.vdt2025.file_service.dto.UploadSessionResponse;
+import com.vdt2025.file_service.entity.UploadSession;
+import com.vdt2025.file_service.exception.AppException;
+import com.vdt2025.file_service.exception.ErrorCode;
+import com.vdt2025.file_service.repository.UploadChunkRepository;
+import com.vdt2025.file_service.repository.UploadSessionRepository;
+import jakarta.transaction.Transactional;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Tải lên theo chunk, có thể tiếp tục sau khi lỗi:
+ * client tạo phiên, gửi song song các chunk kèm offset (ghi thẳng vào đúng vị trí của file tạm),
+ * rồi gọi hoàn tất để file tạm được đổi tên thành file đích và ghi UploadedFile.
+ * File tạm chỉ bị xóa sau khi transaction hoàn tất hoặc hủy phiên đã commit, nên lỗi lúc hoàn tất không làm mất phiên.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ChunkedUploadService {
+    static final String SESSION_DIRECTORY = ".sessions";
+
+    UploadSessionRepository uploadSessionRepository;
+    UploadChunkRepository uploadChunkRepository;
+    UploadSessionProperties uploadSessionProperties;
+    FileStorageService fileStorageService;
+    CurrentUserResolver currentUserResolver;
+
+    /**
+     * Tạo phiên tải lên và cấp phát sẵn file tạm đúng kích thước.
+     */
+    @Transactional
+    public UploadSessionResponse createSession(UploadSessionRequest request) {
+        if (request.getTotalSize() > uploadSessionProperties.getMaxFileSize().toBytes()) {
+            throw new AppException(ErrorCode.FILE_TOO_LARGE);
+        }
+        String originalFilename = fileStorageService.sanitizeFilename(request.getFileName());
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .originalFileName(originalFilename)
+                .contentType(request.getContentType())
+                .totalSize(request.getTotalSize())
+                .chunkSize((int) uploadSessionProperties.getChunkSize().toBytes())
+                .uploadedBy(currentUserResolver.resolve().getId())
+                .createdAt(now)
+                .expiresAt(now.plus(uploadSessionProperties.getTtl()))
+                .build());
+
+        Path partFile = resolvePartFile(session.getId());
+        try {
+            Files.createDirectories(partFile.getParent());
+            try (RandomAccessFile file = new RandomAccessFile(partFile.toFile(), "rw")) {
+                file.setLength(session.getTotalSize());
+            }
+        } catch (IOException ex) {
+            log.error("Could not allocate upload session file {}", partFile, ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_STORED);
+        }
+
+        log.info("Upload session {} created for {} ({} bytes)", session.getId(), originalFilename, session.getTotalSize());
+        return toResponse(session, List.of());
+    }
+
+    /**
+     * Ghi một chunk vào file tạm tại offset. Chunk phải thẳng hàng theo chunkSize của phiên
+     * và có đúng độ dài mong đợi; gửi lại chunk đã nhận sẽ ghi đè cùng vùng dữ liệu.
+     *
+     * @param offset        Vị trí byte bắt đầu của chunk.
+     * @param contentLength Độ dài body (Content-Length).
+     * @param body          Luồng dữ liệu thô của request, không qua multipart.
+     */
+    public void writeChunk(String sessionId, long offset, long contentLength, InputStream body) {
+        UploadSession session = findOwnedSession(sessionId);
+
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new AppException(ErrorCode.INVALID_CHUNK);
+        }
+        int chunkIndex = (int) (offset / session.getChunkSize());
+        long expected = session.expectedChunkSize(chunkIndex);
+        if (contentLength != expected) {
+            throw new AppException(ErrorCode.INVALID_CHUNK);
+        }
+
+        Path partFile = resolvePartFile(sessionId);
+        // Mỗi request mở kênh riêng và chỉ ghi vùng của mình, nên các chunk có thể ghi song song
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            long written = 0;
+            while (written < expected) {
+                long transferred = channel.transferFrom(source, offset + written, expected - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written != expected) {
+                throw new AppException(ErrorCode.INVALID_CHUNK);
+            }
+        } catch (IOException ex) {
+            log.error("Could not write chunk {} of upload session {}", chunkIndex, sessionId, ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_STORED);
+        }
+
+        uploadChunkRepository.markReceived(sessionId, chunkIndex, expected);
+    }
+
+    /**
+     * Trạng thái phiên, dùng để tiếp tục tải lên sau khi bị gián đoạn.
+     */
+    public UploadSessionResponse getSession(String sessionId) {
+        UploadSession session = findOwnedSession(sessionId);
+        return toResponse(session, uploadChunkRepository.findChunkIndexes(sessionId));
+    }
+
+    /**
+     * Hoàn tất phiên khi đã nhận đủ chunk: file tạm trở thành file đích và UploadedFile được ghi lại.
+     *
+     * @return Tên file duy nhất đã được lưu.
+     */
+    @Transactional
+    public String complete(String sessionId) {
+        UploadSession session = uploadSessionRepository.findByIdForUpdate(sessionId)
+                .orElseThrow(() -> new AppException(ErrorCode.UPLOAD_SESSION_NOT_FOUND));
+        checkOwner(session);
+
+        if (uploadChunkRepository.countBySessionId(sessionId) != session.getTotalChunks()) {
+            throw new AppException(ErrorCode.UPLOAD_INCOMPLETE);
+        }
+
+        // File tạm chỉ bị xóa sau khi commit: nếu transaction rollback, phiên và các chunk đã nhận vẫn dùng được
+        Path partFile = resolvePartFile(sessionId);
+        Path staged = stageForCompletion(partFile);
+        runAfterCompletion(status -> deleteQuietly(status == TransactionSynchronization.STATUS_COMMITTED ? partFile : staged));
+        String fileName = fileStorageService.storeAssembledFile(staged,
+                session.getOriginalFileName(), session.getContentType(), session.getTotalSize(),
+                session.getUploadedBy());
+
+        uploadChunkRepository.deleteBySessionId(sessionId);
+        uploadSessionRepository.delete(session);
+        log.info("Upload session {} completed as {}", sessionId, fileName);
+        return fileName;
+    }
+
+    /**
+     * Hủy phiên và xóa file tạm.
+     */
+    @Transactional
+    public void abort(String sessionId) {
+        UploadSession session = findOwnedSession(sessionId);
+        removeSession(session);
+    }
+
+    // Dọn các phiên quá hạn chưa hoàn tất cùng file tạm của chúng
+    @Scheduled(cron = "${file.upload-session.cleanup-cron:0 0 * * * *}")
+    @Transactional
+    public void purgeExpiredSessions() {
+        List<UploadSession> expired = uploadSessionRepository.findByExpiresAtBefore(LocalDateTime.now());
+        expired.forEach(this::removeSession);
+        if (!expired.isEmpty()) {
+            log.info("Purged {} expired upload sessions", expired.size());
+        }
+    }
+
+    private void removeSession(UploadSession session) {
+        uploadChunkRepository.deleteBySessionId(session.getId());
+        uploadSessionRepository.delete(session);
+        Path partFile = resolvePartFile(session.getId());
+        runAfterCompletion(status -> {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                deleteQuietly(partFile);
+            }
+        });
+    }
+
+    /*
+     * Tạo một tên khác (hard link, không sao chép dữ liệu) trỏ tới file tạm để bước lưu trữ đổi tên/xóa,
+     * file tạm gốc vẫn còn đến khi transaction commit. Hệ thống file không hỗ trợ hard link thì sao chép.
+     */
+    private Path stageForCompletion(Path partFile) {
+        Path staged = partFile.resolveSibling(partFile.getFileName() + "." + UUID.randomUUID() + ".completing");
+        try {
+            try {
+                Files.createLink(staged, partFile);
+            } catch (UnsupportedOperationException | FileSystemException ex) {
+                Files.copy(partFile, staged);
+            }
+            return staged;
+        } catch (IOException ex) {
+            log.error("Could not stage upload file {}", partFile, ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_STORED);
+        }
+    }
+
+    // Chạy sau khi transaction kết thúc với trạng thái commit/rollback, hoặc ngay (coi như commit) nếu không có transaction
+    private void runAfterCompletion(IntConsumer action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(TransactionSynchronization.STATUS_COMMITTED);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status);
+            }
+        });
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete upload file {}", file.getFileName(), ex);
+        }
+    }
+
+    private UploadSession findOwnedSession(String sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new AppException(ErrorCode.UPLOAD_SESSION_NOT_FOUND));
+        checkOwner(session);
+        return session;
+    }
+
+    // Chỉ người tạo phiên mới được gửi chunk, xem trạng thái hoặc hoàn tất
+    private void checkOwner(UploadSession session) {
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new AppException(ErrorCode.UPLOAD_SESSION_NOT_FOUND);
+        }
+        if (!session.getUploadedBy().equals(currentUserResolver.resolve().getId())) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+    }
+
+    // File tạm nằm cùng ổ đĩa với thư mục lưu trữ để khi hoàn tất chỉ cần đổi tên, không sao chép
+    private Path resolvePartFile(String sessionId) {
+        return fileStorageService.getStorageLocation().resolve(SESSION_DIRECTORY).resolve(sessionId + ".part");
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session, List<Integer> receivedChunks) {
+        return UploadSessionResponse.builder()
+                .id(session.getId())
+                .fileName(session.getOriginalFileName())
+                .totalSize(session.getTotalSize())
+                .chunkSize(session.getChunkSize())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(receivedChunks)
+                .expiresAt(session.getExpiresAt())
+                .build();
+    }
+}
@@ -0,0 +1,278 @@
+package com.vdt2025.file_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vdt2025.file_service.dto.FileMetadata;
+import com.vdt2025.file_service.entity.UploadedFile;
+import com.vdt2025.file_service.exception.AppException;
+import com.vdt2025.file_service.exception.ErrorCode;
+import com.vdt2025.file_service.repository.UploadedFileRepository;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Phục vụ tải file:
+ * - Metadata (Content-Type, kích thước, ETag, Last-Modified) lấy từ UploadedFile và cache cục bộ,
+ *   không dò Content-Type trên hệ thống file ở mỗi request.
+ * - GET có điều kiện (If-None-Match / If-Modified-Since) trả về 304.
+ * - Hỗ trợ Range một đoạn và nhiều đoạn (multipart/byteranges), If-Range.
+ * - Nội dung được gửi bằng sendfile của Tomcat khi có thể, nếu không thì FileChannel.transferTo.
+ * - Tham số size phục vụ biến thể ảnh đã thu nhỏ thay cho ảnh gốc.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class FileDownloadService {
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    UploadedFileRepository uploadedFileRepository;
+    FileStorageService fileStorageService;
+    ImageVariantService imageVariantService;
+    Cache<String, FileMetadata> metadataCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    // inline = true để trình duyệt hiển thị trực tiếp (ảnh sản phẩm, avatar), false để tải về
+    // size = tên kích thước biến thể ảnh (thumb, small, ...), null để lấy file gốc
+    public void serve(String fileName, boolean inline, String size,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileMetadata metadata = metadataCache.get(fileName, this::loadMetadata);
+        if (size != null) {
+            FileMetadata original = metadata;
+            metadata = metadataCache.get(variantKey(fileName, size), key -> loadVariantMetadata(original, size));
+        }
+
+        // 304 nếu client đã có bản hiện tại (file không đổi sau khi tải lên nên ETag chỉ phụ thuộc id và kích thước)
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.getEtag(), metadata.getLastModified())) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                .filename(metadata.getDownloadName(), StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        boolean headOnly = HttpMethod.HEAD.matches(request.getMethod());
+
+        List<HttpRange> ranges = parseRanges(request, metadata);
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.getSize());
+            return;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(metadata.getContentType());
+            response.setContentLengthLong(metadata.getSize());
+            if (!headOnly) {
+                send(request, response, metadata, 0, metadata.getSize());
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(metadata.getSize());
+            long end = ranges.get(0).getRangeEnd(metadata.getSize());
+            response.setContentType(metadata.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, metadata.getSize()));
+            response.setContentLengthLong(end - start + 1);
+            if (!headOnly) {
+                send(request, response, metadata, start, end + 1);
+            }
+            return;
+        }
+
+        sendMultipart(response, metadata, ranges, headOnly);
+    }
+
+    // Xóa metadata khỏi cache khi file bị xóa
+    public void evict(String fileName) {
+        metadataCache.invalidate(fileName);
+        imageVariantService.getSizeNames().forEach(size -> metadataCache.invalidate(variantKey(fileName, size)));
+    }
+
+    private static String variantKey(String fileName, String size) {
+        return fileName + "@" + size;
+    }
+
+    // Biến thể dùng chung Last-Modified với file gốc, ETag gắn thêm tên kích thước
+    private FileMetadata loadVariantMetadata(FileMetadata original, String size) {
+        Path path = imageVariantService.resolveVariant(original.getPath(), original.getContentType(), size);
+        try {
+            String etag = original.getEtag();
+            return FileMetadata.builder()
+                    .path(path)
+                    .contentType(ImageVariantService.VARIANT_CONTENT_TYPE)
+                    .size(Files.size(path))
+                    .downloadName(original.getDownloadName())
+                    .etag(etag.substring(0, etag.length() - 1) + "-" + size + "\"")
+                    .lastModified(original.getLastModified())
+                    .build();
+        } catch (IOException ex) {
+            log.error("Could not read {} variant of {}", size, original.getPath().getFileName(), ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_READ);
+        }
+    }
+
+    private FileMetadata loadMetadata(String fileName) {
+        // Kiểm tra Path Traversal trước khi tra cứu
+        fileStorageService.resolveStoredPath(fileName);
+        UploadedFile uploadedFile = uploadedFileRepository.findByFileName(fileName)
+                .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND));
+        Path path = fileStorageService.resolveContentPath(uploadedFile);
+        try {
+            long size = Files.size(path);
+            String contentType = uploadedFile.getFileType() != null
+                    ? uploadedFile.getFileType()
+                    : MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            long lastModified = uploadedFile.getUploadedAt() != null
+                    ? uploadedFile.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Files.getLastModifiedTime(path).toMillis();
+            return FileMetadata.builder()
+                    .path(path)
+                    .contentType(contentType)
+                    .size(size)
+                    .downloadName(uploadedFile.getOriginalFileName() != null ? uploadedFile.getOriginalFileName() : fileName)
+                    // Blob theo nội dung dùng luôn digest làm ETag, các bản tải lên giống nhau có cùng ETag
+                    .etag("\"" + (uploadedFile.getBlobDigest() != null
+                            ? uploadedFile.getBlobDigest()
+                            : uploadedFile.getId() + "-" + size) + "\"")
+                    .lastModified(lastModified)
+                    .build();
+        } catch (NoSuchFileException ex) {
+            throw new AppException(ErrorCode.FILE_NOT_FOUND);
+        } catch (IOException ex) {
+            log.error("Could not read metadata of file {}", fileName, ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_READ);
+        }
+    }
+
+    // Trả về danh sách rỗng nếu phải gửi toàn bộ file, null nếu Range không hợp lệ (416)
+    private List<HttpRange> parseRanges(HttpServletRequest request, FileMetadata metadata) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        // If-Range không khớp: file đã khác bản client đang có, gửi toàn bộ
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRangeMatches(ifRange, request, metadata)) {
+            return List.of();
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            long total = 0;
+            for (HttpRange range : ranges) {
+                // getRangeStart/End ném IllegalArgumentException nếu đoạn nằm ngoài file
+                total += range.getRangeEnd(metadata.getSize()) - range.getRangeStart(metadata.getSize()) + 1;
+            }
+            // Các đoạn chồng nhau (bytes=0-,0-,...) không được gửi nhiều hơn cả file, như HttpRange.toResourceRegions
+            if (ranges.size() > 1 && total > metadata.getSize()) {
+                return null;
+            }
+            return ranges;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    // If-Range là entity-tag (bắt đầu bằng " hoặc W/) hoặc HTTP-date; giá trị không đọc được coi như không khớp
+    private boolean ifRangeMatches(String ifRange, HttpServletRequest request, FileMetadata metadata) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Range chỉ dùng được với so sánh mạnh, ETag yếu không bao giờ khớp
+            return ifRange.equals(metadata.getEtag());
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate != -1 && metadata.getLastModified() / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    // Gửi đoạn [start, end) của file
+    private void send(HttpServletRequest request, HttpServletResponse response, FileMetadata metadata,
+                      long start, long end) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat tự gửi bằng sendfile sau khi request kết thúc, dữ liệu không đi qua heap của JVM
+            request.setAttribute(SENDFILE_FILENAME, metadata.getPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(metadata.getPath(), StandardOpenOption.READ)) {
+            transfer(channel, Channels.newChannel(response.getOutputStream()), start, end);
+        }
+    }
+
+    private void sendMultipart(HttpServletResponse response, FileMetadata metadata, List<HttpRange> ranges,
+                               boolean headOnly) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (headOnly) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(metadata.getPath(), StandardOpenOption.READ)) {
+            for (HttpRange range : ranges) {
+                long start = range.getRangeStart(metadata.getSize());
+                long end = range.getRangeEnd(metadata.getSize());
+                out.write(("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + metadata.getContentType() + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, metadata.getSize()) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                transfer(channel, target, start, end + 1);
+            }
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void transfer(FileChannel channel, WritableByteChannel target, long start, long end) throws IOException {
+        long position = start;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+    }
+
+    private static String contentRange(long start, long end, long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
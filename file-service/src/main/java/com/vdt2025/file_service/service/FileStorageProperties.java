@@ -14,4 +14,6 @@ import org.springframework.stereotype.Component;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class FileStorageProperties {
     String directory;
+    // Lưu nội dung theo SHA-256 (mỗi nội dung chỉ một bản trên đĩa), false để lưu mỗi lần tải lên một file riêng
+    boolean contentAddressed = true;
 }
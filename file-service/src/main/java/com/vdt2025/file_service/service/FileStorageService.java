@@ -1,6 +1,5 @@
 package com.vdt2025.file_service.service;
 
-import com.vdt2025.common_dto.service.UserServiceClient;
 import com.vdt2025.file_service.entity.UploadedFile;
 import com.vdt2025.file_service.exception.AppException;
 import com.vdt2025.file_service.exception.ErrorCode;
@@ -13,9 +12,12 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -26,7 +28,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
-import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -37,7 +38,9 @@ public class FileStorageService {
 
     final UploadedFileRepository uploadedFileRepository;
     final FileStorageProperties fileStorageProperties;
-    final UserServiceClient userServiceClient;
+    final CurrentUserResolver currentUserResolver;
+    final BlobStore blobStore;
+    final ImageVariantService imageVariantService;
 
     // Đường dẫn gốc để lưu trữ file, được khởi tạo một lần duy nhất.
     Path fileStorageLocation;
@@ -72,38 +75,31 @@ public class FileStorageService {
         }
 
         // Lấy tên file gốc và làm sạch nó
-        String originalFilename = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-
-        // [BẢO MẬT] Kiểm tra xem tên file có chứa ký tự không hợp lệ không
-        if (originalFilename.contains("..")) {
-            throw new AppException(ErrorCode.INVALID_FILE_PATH);
-        }
+        String originalFilename = sanitizeFilename(file.getOriginalFilename());
 
         // Tạo tên file duy nhất để tránh trùng lặp
         String fileName = UUID.randomUUID() + "_" + originalFilename;
 
         try {
-            // Xây dựng đường dẫn đầy đủ để lưu file
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            // Sao chép nội dung file vào vị trí đích
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String blobDigest = null;
+            if (fileStorageProperties.isContentAddressed()) {
+                // Lưu theo nội dung: cùng một ảnh tải lên nhiều lần chỉ chiếm một bản trên đĩa
+                blobDigest = blobStore.store(this.fileStorageLocation, file.getInputStream());
+            } else {
+                // Xây dựng đường dẫn đầy đủ để lưu file
+                Path targetLocation = this.fileStorageLocation.resolve(fileName);
+                // Sao chép nội dung file vào vị trí đích
+                Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            }
 
             // Lấy thông tin người dùng hiện tại
-            String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
-            String userId = userServiceClient.getUserByUsername(currentUsername).getResult().getId();
+            String userId = currentUserResolver.resolve().getId();
 
             // Tạo và lưu thông tin file vào cơ sở dữ liệu
-            UploadedFile uploadedFile = UploadedFile.builder()
-                    .fileName(fileName)
-                    .originalFileName(originalFilename)
-                    .fileType(file.getContentType())
-                    .fileSize(file.getSize())
-                    .uploadedAt(LocalDateTime.now())
-                    .uploadedBy(userId)
-                    .build();
-            uploadedFileRepository.save(uploadedFile);
-
-            log.info("File stored successfully: {}", fileName);
+            UploadedFile uploadedFile =
+                    saveUploadedFile(fileName, originalFilename, file.getContentType(), file.getSize(), userId, blobDigest);
+            // Tạo sẵn ảnh thu nhỏ trên pool riêng, không làm chậm request tải lên
+            imageVariantService.scheduleVariants(resolveContentPath(uploadedFile), uploadedFile.getFileType());
             return fileName;
         } catch (IOException ex) {
             log.error("Could not store file {}. Please try again!", fileName, ex);
@@ -112,25 +108,110 @@ public class FileStorageService {
     }
 
     /**
-     * Tải file dưới dạng Resource.
+     * Ghi nhận một file đã được ghép sẵn trên đĩa (tải lên theo chunk) mà không sao chép lại nội dung:
+     * file tạm được đổi tên thành blob hoặc thành file đích.
      *
-     * @param fileName Tên file cần tải.
-     * @return Resource của file.
+     * @param assembledFile File đã ghép đủ nội dung, nằm trong thư mục lưu trữ.
+     * @return Tên file duy nhất đã được lưu.
      */
-    public Resource loadFile(String fileName) {
+    @Transactional
+    public String storeAssembledFile(Path assembledFile, String originalFileName, String contentType,
+                                     long size, String uploadedBy) {
+        String originalFilename = sanitizeFilename(originalFileName);
+        String fileName = UUID.randomUUID() + "_" + originalFilename;
         try {
-            // [BẢO MẬT] Ngăn chặn Path Traversal
-            if (fileName.contains("..")) {
-                throw new AppException(ErrorCode.INVALID_FILE_PATH);
+            String blobDigest = null;
+            if (fileStorageProperties.isContentAddressed()) {
+                blobDigest = blobStore.storeFile(this.fileStorageLocation, assembledFile);
+            } else {
+                Path targetLocation = this.fileStorageLocation.resolve(fileName);
+                Files.move(assembledFile, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+                // Transaction rollback thì không có UploadedFile trỏ tới file này
+                deleteOnRollback(targetLocation);
             }
+            UploadedFile uploadedFile =
+                    saveUploadedFile(fileName, originalFilename, contentType, size, uploadedBy, blobDigest);
+            imageVariantService.scheduleVariants(resolveContentPath(uploadedFile), uploadedFile.getFileType());
+            return fileName;
+        } catch (IOException ex) {
+            log.error("Could not store assembled file {}", fileName, ex);
+            throw new AppException(ErrorCode.FILE_CANNOT_STORED);
+        }
+    }
 
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-
-            // [BẢO MẬT] Đảm bảo đường dẫn cuối cùng không đi ra ngoài thư mục gốc
-            if (!filePath.startsWith(this.fileStorageLocation)) {
-                throw new AppException(ErrorCode.INVALID_FILE_PATH);
+    private void deleteOnRollback(Path file) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ex) {
+                    log.warn("Could not delete {} after rollback", file.getFileName(), ex);
+                }
             }
+        });
+    }
+
+    /**
+     * Thư mục gốc lưu trữ file (đã chuẩn hóa).
+     */
+    public Path getStorageLocation() {
+        return this.fileStorageLocation;
+    }
+
+    /**
+     * Làm sạch tên file gốc do client gửi lên.
+     *
+     * @param originalFilename Tên file gốc.
+     * @return Tên file đã làm sạch.
+     */
+    public String sanitizeFilename(String originalFilename) {
+        if (!StringUtils.hasText(originalFilename)) {
+            throw new AppException(ErrorCode.INVALID_FILE_NAME);
+        }
+        String cleaned = StringUtils.cleanPath(originalFilename);
+
+        // [BẢO MẬT] Kiểm tra xem tên file có chứa ký tự không hợp lệ không
+        if (cleaned.contains("..")) {
+            throw new AppException(ErrorCode.INVALID_FILE_PATH);
+        }
+        return cleaned;
+    }
+
+    private UploadedFile saveUploadedFile(String fileName, String originalFilename, String contentType, long size,
+                                  String uploadedBy, String blobDigest) {
+        UploadedFile uploadedFile = UploadedFile.builder()
+                .fileName(fileName)
+                .originalFileName(originalFilename)
+                .fileType(resolveContentType(contentType, originalFilename))
+                .fileSize(size)
+                .uploadedAt(LocalDateTime.now())
+                .uploadedBy(uploadedBy)
+                .blobDigest(blobDigest)
+                .build();
+        uploadedFileRepository.save(uploadedFile);
 
+        log.info("File stored successfully: {}", fileName);
+        return uploadedFile;
+    }
+
+    /**
+     * Tải file dưới dạng Resource.
+     *
+     * @param fileName Tên file cần tải.
+     * @return Resource của file.
+     */
+    public Resource loadFile(String fileName) {
+        try {
+            Path filePath = uploadedFileRepository.findByFileName(fileName)
+                    .map(this::resolveContentPath)
+                    .orElseGet(() -> resolveStoredPath(fileName));
             Resource resource = new UrlResource(filePath.toUri());
             if (resource.exists()) {
                 return resource;
@@ -143,6 +224,50 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Xác định đường dẫn chứa nội dung của file: blob nếu lưu theo nội dung, ngược lại là file theo tên.
+     *
+     * @param uploadedFile Thông tin file đã tải lên.
+     * @return Đường dẫn tuyệt đối tới nội dung.
+     */
+    public Path resolveContentPath(UploadedFile uploadedFile) {
+        if (uploadedFile.getBlobDigest() != null) {
+            return blobStore.resolve(this.fileStorageLocation, uploadedFile.getBlobDigest());
+        }
+        return resolveStoredPath(uploadedFile.getFileName());
+    }
+
+    /**
+     * Xác định đường dẫn vật lý của file đã lưu, chặn Path Traversal.
+     *
+     * @param fileName Tên file đã lưu.
+     * @return Đường dẫn tuyệt đối nằm trong thư mục lưu trữ.
+     */
+    public Path resolveStoredPath(String fileName) {
+        // [BẢO MẬT] Ngăn chặn Path Traversal
+        if (fileName.contains("..")) {
+            throw new AppException(ErrorCode.INVALID_FILE_PATH);
+        }
+
+        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+
+        // [BẢO MẬT] Đảm bảo đường dẫn cuối cùng không đi ra ngoài thư mục gốc
+        if (!filePath.startsWith(this.fileStorageLocation)) {
+            throw new AppException(ErrorCode.INVALID_FILE_PATH);
+        }
+        return filePath;
+    }
+
+    // Lưu Content-Type ngay khi tải lên để lúc tải xuống không phải dò trên hệ thống file
+    private String resolveContentType(String declaredType, String originalFilename) {
+        if (StringUtils.hasText(declaredType)) {
+            return declaredType;
+        }
+        return MediaTypeFactory.getMediaType(originalFilename)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+    }
+
     /**
      * Xóa một file khỏi hệ thống và cơ sở dữ liệu.
      * Yêu cầu quyền ADMIN.
@@ -156,12 +281,21 @@ public class FileStorageService {
         UploadedFile fileEntity = uploadedFileRepository.findByFileName(fileName)
                 .orElseThrow(() -> new AppException(ErrorCode.FILE_NOT_FOUND));
 
+        // File lưu theo nội dung: chỉ xóa blob khi tham chiếu cuối cùng bị xóa
+        if (fileEntity.getBlobDigest() != null) {
+            uploadedFileRepository.delete(fileEntity);
+            blobStore.release(this.fileStorageLocation, fileEntity.getBlobDigest());
+            log.info("File deleted successfully: {}", fileName);
+            return;
+        }
+
         try {
             // 2. Xây dựng đường dẫn đến file vật lý
             Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
 
             // 3. Xóa file vật lý khỏi hệ thống
             Files.deleteIfExists(filePath);
+            imageVariantService.deleteVariants(filePath);
 
             // 4. Xóa bản ghi khỏi cơ sở dữ liệu
             uploadedFileRepository.delete(fileEntity);
@@ -0,0 +1,39 @@
+package com.vdt2025.file_service.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "file.image-variants")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImageVariantProperties {
+    boolean enabled = true;
+    // Tên kích thước -> chiều rộng (px), client chọn qua tham số size khi tải về
+    Map<String, Integer> sizes = new LinkedHashMap<>();
+    // Chất lượng nén JPEG của các biến thể (0..1)
+    float quality = 0.8f;
+    // Số luồng và độ dài hàng đợi của pool tạo biến thể, hàng đợi đầy thì để lần tải đầu tiên tạo lazily
+    int workerThreads = 2;
+    int queueCapacity = 200;
+    // Thời gian request chờ biến thể được tạo lazily, quá hạn thì trả 503 để client thử lại
+    Duration renderTimeout = Duration.ofSeconds(10);
+    // Bỏ qua ảnh quá lớn (số điểm ảnh) để không cạn bộ nhớ khi giải mã
+    long maxSourcePixels = 40_000_000L;
+
+    public ImageVariantProperties() {
+        sizes.put("thumb", 160);
+        sizes.put("small", 320);
+        sizes.put("medium", 640);
+        sizes.put("large", 1280);
+    }
+}
@@ -0,0 +1,276 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.file_service.exception.AppException;
+import com.vdt2025.file_service.exception.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tạo các biến thể ảnh (thu nhỏ theo chiều rộng cố định, nén lại JPEG) đặt cạnh file gốc:
+ * {đường dẫn gốc}@{size}.jpg. Biến thể được tạo bất đồng bộ sau khi tải lên trên một pool giới hạn,
+ * và được tạo lazily (trên cùng pool) ở lần tải đầu tiên nếu chưa có (pool đầy, file cũ, thêm kích thước mới).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ImageVariantService {
+    public static final String VARIANT_CONTENT_TYPE = "image/jpeg";
+    static final Set<String> SUPPORTED_TYPES = Set.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+
+    ImageVariantProperties properties;
+    // Các biến thể đang được tạo, để request cùng tải lần đầu chờ chung một lượt
+    ConcurrentMap<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @NonFinal
+    ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                properties.getWorkerThreads(), properties.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean supports(String contentType) {
+        return properties.isEnabled() && contentType != null && SUPPORTED_TYPES.contains(contentType.toLowerCase());
+    }
+
+    public Set<String> getSizeNames() {
+        return properties.getSizes().keySet();
+    }
+
+    /**
+     * Lên lịch tạo tất cả biến thể cho ảnh vừa tải lên, chạy sau khi transaction commit.
+     * Hàng đợi đầy thì bỏ qua: biến thể sẽ được tạo khi có người tải.
+     */
+    public void scheduleVariants(Path original, String contentType) {
+        if (!supports(contentType)) {
+            return;
+        }
+        Runnable submit = () -> {
+            try {
+                executor.execute(() -> renderAll(original));
+            } catch (RejectedExecutionException ex) {
+                log.warn("Image variant queue is full, variants of {} will be rendered on demand", original.getFileName());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Trả về đường dẫn biến thể của ảnh, tạo ngay nếu chưa có.
+     * Việc tạo chạy trên pool giới hạn (không chiếm luồng request) và mỗi biến thể chỉ được tạo một lần
+     * dù nhiều request cùng tải lần đầu; pool đầy hoặc quá thời gian chờ thì trả 503 để client thử lại.
+     *
+     * @param size Tên kích thước đã cấu hình (thumb, small, ...).
+     */
+    public Path resolveVariant(Path original, String contentType, String size) {
+        Integer width = properties.getSizes().get(size);
+        if (width == null) {
+            throw new AppException(ErrorCode.INVALID_IMAGE_SIZE);
+        }
+        if (!supports(contentType)) {
+            throw new AppException(ErrorCode.INVALID_IMAGE_TYPE);
+        }
+        Path variant = variantPath(original, size);
+        if (Files.exists(variant)) {
+            return variant;
+        }
+        CompletableFuture<Path> rendering = submitRender(original, width, variant);
+        try {
+            return rendering.get(properties.getRenderTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // Việc tạo vẫn tiếp tục trên pool, lần thử lại sẽ thấy biến thể đã có
+            throw new AppException(ErrorCode.IMAGE_VARIANT_UNAVAILABLE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.IMAGE_VARIANT_UNAVAILABLE);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof AppException appException) {
+                throw appException;
+            }
+            throw new AppException(ErrorCode.FILE_CANNOT_READ);
+        }
+    }
+
+    // Dùng lại lượt tạo đang chạy của cùng biến thể, nếu chưa có thì đưa một lượt mới vào pool
+    private CompletableFuture<Path> submitRender(Path original, int width, Path variant) {
+        CompletableFuture<Path> own = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(variant, own);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> renderTracked(original, width, variant, own));
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(variant, own);
+            log.warn("Image variant queue is full, cannot render {} now", variant.getFileName());
+            throw new AppException(ErrorCode.IMAGE_VARIANT_UNAVAILABLE);
+        }
+        return own;
+    }
+
+    private void renderTracked(Path original, int width, Path variant, CompletableFuture<Path> future) {
+        try {
+            // Blob dùng lại (trùng nội dung) hoặc lượt trước đã tạo xong
+            if (!Files.exists(variant)) {
+                render(original, width, variant);
+            }
+            future.complete(variant);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not render {}", variant.getFileName(), ex);
+            future.completeExceptionally(ex);
+        } finally {
+            inFlight.remove(variant, future);
+        }
+    }
+
+    // Xóa các biến thể khi file gốc bị xóa
+    public void deleteVariants(Path original) {
+        for (String size : properties.getSizes().keySet()) {
+            try {
+                Files.deleteIfExists(variantPath(original, size));
+            } catch (IOException ex) {
+                log.warn("Could not delete {} variant of {}", size, original.getFileName(), ex);
+            }
+        }
+    }
+
+    public Path variantPath(Path original, String size) {
+        return original.resolveSibling(original.getFileName() + "@" + size + ".jpg");
+    }
+
+    private void renderAll(Path original) {
+        properties.getSizes().forEach((size, width) -> {
+            Path variant = variantPath(original, size);
+            if (Files.exists(variant)) {
+                return;
+            }
+            // Một request đang chờ tạo biến thể này thì để lượt đó làm
+            CompletableFuture<Path> own = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(variant, own) == null) {
+                renderTracked(original, width, variant, own);
+            }
+        });
+    }
+
+    private void render(Path original, int width, Path variant) throws IOException {
+        BufferedImage source = read(original);
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+
+        // JPEG không có kênh alpha: vẽ lên nền trắng
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // Ghi ra file tạm cùng thư mục rồi đổi tên, để lượt tải song song không đọc phải file ghi dở
+        Path tempFile = Files.createTempFile(variant.getParent(), "variant-", ".tmp");
+        try {
+            writeJpeg(scaled, tempFile);
+            Files.move(tempFile, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Đọc kích thước trước khi giải mã để chặn ảnh quá lớn
+    private BufferedImage read(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new AppException(ErrorCode.INVALID_IMAGE_TYPE);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > properties.getMaxSourcePixels()) {
+                    throw new AppException(ErrorCode.INVALID_IMAGE_TYPE);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(properties.getQuality());
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
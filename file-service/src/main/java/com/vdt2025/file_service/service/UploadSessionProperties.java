@@ -0,0 +1,25 @@
+package com.vdt2025.file_service.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "file.upload-session")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadSessionProperties {
+    // Kích thước chunk mà client phải dùng (trừ chunk cuối)
+    DataSize chunkSize = DataSize.ofMegabytes(8);
+    // Kích thước tối đa của một file tải lên theo chunk
+    DataSize maxFileSize = DataSize.ofGigabytes(5);
+    // Thời gian giữ phiên chưa hoàn tất để client tiếp tục tải
+    Duration ttl = Duration.ofHours(24);
+}
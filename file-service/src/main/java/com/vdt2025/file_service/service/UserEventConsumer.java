@@ -0,0 +1,26 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.common_dto.dto.UserChangedEvent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserEventConsumer {
+    UserLookupService userLookupService;
+
+    // Mỗi instance dùng một group id riêng để instance nào cũng nhận được sự kiện và tự xóa cache của mình
+    @KafkaListener(topics = "user-changed-topic",
+            groupId = "${spring.application.name}-user-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onUserChanged(UserChangedEvent event) {
+        log.info("User {} changed, evicting local user cache entry", event.getUsername());
+        userLookupService.evict(event.getUsername());
+    }
+}
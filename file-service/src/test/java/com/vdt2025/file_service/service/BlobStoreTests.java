@@ -0,0 +1,176 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.file_service.repository.FileBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BlobStoreTests {
+    static final String CONTENT = "same picture bytes";
+
+    @Mock
+    FileBlobRepository fileBlobRepository;
+    @Mock
+    ImageVariantService imageVariantService;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path root;
+
+    // Bảng file_blob giả lập: digest -> ref_count
+    final Map<String, Integer> refCounts = new HashMap<>();
+
+    BlobStore blobStore;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> refCounts.merge(invocation.getArgument(0), 1, Integer::sum))
+                .when(fileBlobRepository).acquire(anyString(), anyLong());
+        lenient().when(fileBlobRepository.release(anyString())).thenAnswer(invocation ->
+                refCounts.computeIfPresent(invocation.getArgument(0), (digest, count) -> count - 1) != null ? 1 : 0);
+        lenient().when(fileBlobRepository.deleteIfUnreferenced(anyString())).thenAnswer(invocation -> {
+            String digest = invocation.getArgument(0);
+            return refCounts.getOrDefault(digest, 1) <= 0 && refCounts.remove(digest) != null ? 1 : 0;
+        });
+        lenient().when(fileBlobRepository.existsById(anyString()))
+                .thenAnswer(invocation -> refCounts.containsKey(invocation.<String>getArgument(0)));
+        blobStore = new BlobStore(fileBlobRepository, imageVariantService, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void identicalContentIsStoredOnceAndReferencedTwice() throws Exception {
+        String first = blobStore.store(root, stream(CONTENT));
+        String second = blobStore.store(root, stream(CONTENT));
+
+        assertThat(first).isEqualTo(second).isEqualTo(sha256(CONTENT));
+        assertThat(refCounts).containsEntry(first, 2);
+        assertThat(Files.readString(blobStore.resolve(root, first))).isEqualTo(CONTENT);
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    void differentContentGetsSeparateBlobs() throws Exception {
+        String first = blobStore.store(root, stream(CONTENT));
+        String second = blobStore.store(root, stream("other bytes"));
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(refCounts).containsEntry(first, 1).containsEntry(second, 1);
+        assertThat(blobStore.resolve(root, first)).exists();
+        assertThat(blobStore.resolve(root, second)).exists();
+    }
+
+    @Test
+    void blobIsDeletedOnlyWhenLastReferenceIsReleased() throws Exception {
+        String digest = blobStore.store(root, stream(CONTENT));
+        blobStore.store(root, stream(CONTENT));
+        Path blobPath = blobStore.resolve(root, digest);
+
+        blobStore.release(root, digest);
+
+        assertThat(refCounts).containsEntry(digest, 1);
+        assertThat(blobPath).exists();
+        verify(imageVariantService, never()).deleteVariants(blobPath);
+
+        blobStore.release(root, digest);
+
+        assertThat(refCounts).doesNotContainKey(digest);
+        assertThat(blobPath).doesNotExist();
+        verify(imageVariantService).deleteVariants(blobPath);
+    }
+
+    @Test
+    void storeFileMovesSourceIntoPlaceAndDeletesDuplicateSource() throws Exception {
+        Path assembled = Files.writeString(root.resolve("assembled-1"), CONTENT);
+        String digest = blobStore.storeFile(root, assembled);
+
+        Path duplicate = Files.writeString(root.resolve("assembled-2"), CONTENT);
+        blobStore.storeFile(root, duplicate);
+
+        assertThat(assembled).doesNotExist();
+        assertThat(duplicate).doesNotExist();
+        assertThat(refCounts).containsEntry(digest, 2);
+        assertThat(Files.readString(blobStore.resolve(root, digest))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void blobPlacedByRolledBackTransactionIsRemoved() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        String digest = blobStore.store(root, stream(CONTENT));
+        Path blobPath = blobStore.resolve(root, digest);
+        assertThat(blobPath).exists();
+
+        // Rollback: bản ghi file_blob của transaction không còn
+        refCounts.remove(digest);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertThat(blobPath).doesNotExist();
+    }
+
+    @Test
+    void releasedBlobIsKeptWhenReferencedAgainBeforeCleanup() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        String digest = blobStore.store(root, stream(CONTENT));
+        blobStore.release(root, digest);
+        Path blobPath = blobStore.resolve(root, digest);
+
+        // Một lượt tải lên cùng nội dung commit trước khi việc dọn blob chạy
+        refCounts.put(digest, 1);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertThat(blobPath).exists();
+        verify(imageVariantService, never()).deleteVariants(blobPath);
+    }
+
+    private List<Path> temporaryFiles() throws Exception {
+        try (Stream<Path> files = Files.list(root)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".tmp")).toList();
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,191 @@
+package com.vdt2025.file_service.service;
+
+import com.vdt2025.file_service.entity.UploadedFile;
+import com.vdt2025.file_service.repository.UploadedFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FileDownloadServiceTests {
+    static final String FILE_NAME = "f1_report.txt";
+    static final String ETAG = "\"digest-1\"";
+
+    @Mock
+    UploadedFileRepository uploadedFileRepository;
+    @Mock
+    FileStorageService fileStorageService;
+    @Mock
+    ImageVariantService imageVariantService;
+
+    @TempDir
+    Path storage;
+
+    FileDownloadService fileDownloadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path content = Files.writeString(storage.resolve("content"), "0123456789");
+        UploadedFile uploadedFile = UploadedFile.builder()
+                .id("f1")
+                .fileName(FILE_NAME)
+                .originalFileName("report.txt")
+                .fileType("text/plain")
+                .fileSize(10L)
+                .uploadedAt(LocalDateTime.of(2025, 7, 1, 8, 0))
+                .blobDigest("digest-1")
+                .build();
+        when(uploadedFileRepository.findByFileName(FILE_NAME)).thenReturn(Optional.of(uploadedFile));
+        lenient().when(fileStorageService.resolveStoredPath(FILE_NAME)).thenReturn(content);
+        when(fileStorageService.resolveContentPath(uploadedFile)).thenReturn(content);
+        fileDownloadService = new FileDownloadService(uploadedFileRepository, fileStorageService, imageVariantService);
+    }
+
+    @Test
+    void servesWholeFileWithoutRange() throws Exception {
+        MockHttpServletResponse response = serve(get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        MockHttpServletResponse response = serve(get("bytes=2-5"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    void servesSuffixRange() throws Exception {
+        MockHttpServletResponse response = serve(get("bytes=-3"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(response.getContentAsString()).isEqualTo("789");
+    }
+
+    @Test
+    void servesMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletResponse response = serve(get("bytes=0-1,6-7"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertThat(body)
+                .contains("Content-Range: bytes 0-1/10\r\n\r\n01\r\n--" + boundary)
+                .contains("Content-Range: bytes 6-7/10\r\n\r\n67\r\n--" + boundary + "--");
+    }
+
+    @Test
+    void honoursRangeWhenIfRangeMatchesEtag() throws Exception {
+        MockHttpServletRequest request = get("bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+    }
+
+    @Test
+    void servesWholeFileWhenIfRangeDoesNotMatch() throws Exception {
+        MockHttpServletRequest request = get("bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("0123456789");
+    }
+
+    @Test
+    void honoursRangeWhenIfRangeDateIsNotOlderThanFile() throws Exception {
+        MockHttpServletRequest request = get("bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "Wed, 01 Jan 2031 00:00:00 GMT");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+    }
+
+    @Test
+    void servesWholeFileWhenIfRangeIsWeakOrUnreadable() throws Exception {
+        for (String ifRange : new String[]{"W/" + ETAG, "yesterday"}) {
+            MockHttpServletRequest request = get("bytes=0-3");
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+
+            MockHttpServletResponse response = serve(request);
+
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    void rejectsRangeOutsideFile() throws Exception {
+        MockHttpServletResponse response = serve(get("bytes=20-30"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rejectsOverlappingRangesLargerThanFile() throws Exception {
+        MockHttpServletResponse response = serve(get("bytes=0-,0-,0-"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void returnsNotModifiedForCurrentEtag() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDownloadService.serve(FILE_NAME, false, null, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/files/" + FILE_NAME);
+    }
+
+    private static MockHttpServletRequest get(String range) {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+}
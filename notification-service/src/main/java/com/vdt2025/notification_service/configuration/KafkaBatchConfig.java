@@ -0,0 +1,46 @@
+package com.vdt2025.notification_service.configuration;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+/**
+ * Chế độ nhận theo lô cho welcome-email-topic: listener nhận cả danh sách record của một lần poll,
+ * offset chỉ được commit sau khi listener trả về (mọi email của lô đã được gửi hoặc đã chuyển sang DLT).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.notification", name = "batch-mode", havingValue = "true", matchIfMissing = true)
+public class KafkaBatchConfig {
+
+    // Record lỗi sau khi đã thử lại được gửi sang DLT cùng partition
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(
+            KafkaOperations<Object, Object> kafkaTemplate,
+            @Value("${spring.kafka.listener.dead-letter.topic}") String deadLetterTopic) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(deadLetterTopic, record.partition()));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // Thử lại từng record được xử lý trong listener; ở đây chỉ còn lỗi hạ tầng (ví dụ không gửi được DLT):
+        // thử lại cả lô rồi chuyển các record còn lại sang DLT
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer, new FixedBackOff(1000L, 2L)));
+        return factory;
+    }
+}
@@ -10,8 +10,6 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 @Service
 @RequiredArgsConstructor
@@ -19,28 +17,11 @@ import org.thymeleaf.context.Context;
 @Slf4j
 public class EmailService {
     JavaMailSender mailSender;
-    TemplateEngine templateEngine; // Thêm TemplateEngine
+    WelcomeEmailTemplate welcomeEmailTemplate;
 
     public void sendWelcomeEmail(String to, String username) {
-        // Chuẩn bị các biến cho template
-        final String subject = "Chào mừng đến với NTA VDT_2025!";
-        Context context = new Context();
-        context.setVariable("username", username);
-        context.setVariable("subject", subject);
-
-        // Render template HTML thành một chuỗi String
-        String htmlContent = templateEngine.process("welcome-email", context);
-
         try {
-            // Sử dụng MimeMessage và MimeMessageHelper để gửi email HTML
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true); // true để chỉ định đây là nội dung HTML
-
-            mailSender.send(mimeMessage);
+            mailSender.send(createWelcomeEmail(to, username));
             log.info("Welcome email sent to {}", to);
         } catch (MessagingException e) {
             log.error("Failed to send welcome email to {}: {}", to, e.getMessage());
@@ -48,6 +29,31 @@ public class EmailService {
         }
     }
 
+    /**
+     * Dựng email chào mừng mà chưa gửi, để có thể gửi nhiều email trên cùng một kết nối SMTP.
+     */
+    public MimeMessage createWelcomeEmail(String to, String username) throws MessagingException {
+        // Template đã render sẵn, chỉ chèn username
+        String htmlContent = welcomeEmailTemplate.render(username);
+
+        // Email chỉ có một phần HTML, không cần multipart
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+
+        helper.setTo(to);
+        helper.setSubject(WelcomeEmailTemplate.SUBJECT);
+        helper.setText(htmlContent, true); // true để chỉ định đây là nội dung HTML
+        return mimeMessage;
+    }
+
+    /**
+     * Gửi nhiều email trên một kết nối SMTP (JavaMailSender mở một transport cho cả mảng).
+     * Email lỗi được báo qua MailSendException.getFailedMessages(), các email khác vẫn được gửi.
+     */
+    public void sendAll(MimeMessage... messages) {
+        mailSender.send(messages);
+    }
+
     public void sendErrorEmailToAdmin(String errorMessage) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setTo("anhnta2004@gmail.com");
@@ -0,0 +1,118 @@
+package com.vdt2025.notification_service.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gửi email song song trên một pool giới hạn.
+ * Lô được chia thành các nhóm, mỗi nhóm gửi trên một kết nối SMTP (một lần mở transport cho cả nhóm)
+ * thay vì mở kết nối cho từng email. Hàng đợi đầy thì luồng gọi tự gửi (áp lực ngược lên listener).
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class MailDispatcher {
+    EmailService emailService;
+
+    @NonFinal
+    @Value("${app.notification.mail.senders:8}")
+    int senders;
+
+    @NonFinal
+    @Value("${app.notification.mail.queue-capacity:32}")
+    int queueCapacity;
+
+    @NonFinal
+    ThreadPoolExecutor executor;
+
+    @FunctionalInterface
+    public interface MessageRenderer<T> {
+        MimeMessage render(T item) throws MessagingException;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(senders, senders, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "mail-sender-" + counter.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Dựng và gửi email cho từng phần tử, chờ đến khi tất cả được SMTP server chấp nhận hoặc thất bại.
+     *
+     * @return Các phần tử gửi lỗi kèm nguyên nhân (rỗng nếu tất cả thành công).
+     */
+    public <T> Map<T, Exception> dispatch(List<T> items, MessageRenderer<T> renderer) {
+        Map<T, Exception> failures = Collections.synchronizedMap(new IdentityHashMap<>());
+        if (items.isEmpty()) {
+            return failures;
+        }
+        int groupSize = (items.size() + senders - 1) / senders;
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += groupSize) {
+            List<T> group = items.subList(from, Math.min(from + groupSize, items.size()));
+            futures.add(CompletableFuture.runAsync(() -> sendGroup(group, renderer, failures), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return failures;
+    }
+
+    private <T> void sendGroup(List<T> group, MessageRenderer<T> renderer, Map<T, Exception> failures) {
+        Map<MimeMessage, T> messages = new IdentityHashMap<>();
+        for (T item : group) {
+            try {
+                messages.put(renderer.render(item), item);
+            } catch (Exception e) {
+                failures.put(item, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        try {
+            emailService.sendAll(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                // Lỗi kết nối: không email nào của nhóm được gửi
+                messages.values().forEach(item -> failures.put(item, e));
+            } else {
+                failedMessages.forEach((message, cause) -> {
+                    T item = messages.get(message);
+                    if (item != null) {
+                        failures.put(item, cause);
+                    }
+                });
+            }
+        } catch (MailException e) {
+            messages.values().forEach(item -> failures.put(item, e));
+        }
+        log.debug("Dispatched {} emails in one SMTP session", messages.size());
+    }
+}
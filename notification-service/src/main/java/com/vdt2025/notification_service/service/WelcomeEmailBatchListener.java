@@ -0,0 +1,82 @@
+package com.vdt2025.notification_service.service;
+
+import com.vdt2025.common_dto.dto.UserCreatedEvent;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nhận welcome-email-topic theo lô và gửi email song song qua MailDispatcher.
+ * Mỗi record vẫn được thử lại riêng (tối đa attempts lần, backoff tăng dần) và chuyển sang DLT riêng,
+ * các record đã gửi thành công trong lô không bị gửi lại.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+@ConditionalOnProperty(prefix = "app.notification", name = "batch-mode", havingValue = "true", matchIfMissing = true)
+public class WelcomeEmailBatchListener {
+    EmailService emailService;
+    MailDispatcher mailDispatcher;
+    DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @NonFinal
+    @Value("${app.notification.retry.attempts:3}")
+    int attempts;
+
+    @NonFinal
+    @Value("${app.notification.retry.delay:1000}")
+    long delay;
+
+    @NonFinal
+    @Value("${app.notification.retry.multiplier:2.0}")
+    double multiplier;
+
+    @KafkaListener(topics = "welcome-email-topic", groupId = "notification-service",
+            containerFactory = "batchListenerContainerFactory",
+            concurrency = "${app.notification.listener.concurrency:3}")
+    public void listen(List<ConsumerRecord<String, UserCreatedEvent>> records) throws InterruptedException {
+        log.info("Received {} UserCreatedEvent records", records.size());
+        List<ConsumerRecord<String, UserCreatedEvent>> pending = records;
+        long backoff = delay;
+        for (int attempt = 1; ; attempt++) {
+            Map<ConsumerRecord<String, UserCreatedEvent>, Exception> failures = mailDispatcher.dispatch(pending,
+                    record -> emailService.createWelcomeEmail(record.value().getEmail(), record.value().getUsername()));
+            log.info("Sent {} of {} welcome emails (attempt {})", pending.size() - failures.size(), pending.size(), attempt);
+            if (failures.isEmpty()) {
+                return;
+            }
+            if (attempt >= attempts) {
+                failures.forEach((record, e) -> {
+                    log.error("Failed to send welcome email for {} after {} attempts, sending to DLT", record.value(), attempts, e);
+                    deadLetterPublishingRecoverer.accept(record, e);
+                });
+                return;
+            }
+            Thread.sleep(backoff);
+            backoff = (long) (backoff * multiplier);
+            pending = new ArrayList<>(failures.keySet());
+        }
+    }
+
+    @KafkaListener(topics = "${spring.kafka.listener.dead-letter.topic}", groupId = "notification-service-dlt")
+    public void dltListen(UserCreatedEvent userCreatedEvent, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        log.error("Failed to process UserWelcomeMessage from topic {} after retries: {}", topic, userCreatedEvent);
+        // Gửi email lỗi cho quản trị viên
+        emailService.sendErrorEmailToAdmin("Failed to process UserWelcomeMessage after retries: " + userCreatedEvent);
+    }
+}
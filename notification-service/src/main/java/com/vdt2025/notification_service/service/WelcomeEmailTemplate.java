@@ -0,0 +1,70 @@
+package com.vdt2025.notification_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.regex.Pattern;
+
+/**
+ * Template email chào mừng đã render sẵn: Thymeleaf chỉ chạy một lần lúc khởi động với giá trị giữ chỗ
+ * cho username, phần tĩnh được cắt quanh chỗ giữ chỗ. Mỗi email chỉ còn nối các phần tĩnh với username
+ * đã escape HTML (giống th:text) trên StringBuilder dùng lại theo luồng.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class WelcomeEmailTemplate {
+    public static final String TEMPLATE_NAME = "welcome-email";
+    public static final String SUBJECT = "Chào mừng đến với NTA VDT_2025!";
+    // Chuỗi giữ chỗ không bị Thymeleaf escape và không xuất hiện trong template
+    static final String USERNAME_PLACEHOLDER = "__VDT_USERNAME_PLACEHOLDER__";
+
+    TemplateEngine templateEngine;
+    ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    // null nếu template không dùng username nguyên dạng (ví dụ có biến đổi), khi đó render bằng Thymeleaf mỗi lần
+    @NonFinal
+    String[] parts;
+
+    @PostConstruct
+    public void init() {
+        String rendered = templateEngine.process(TEMPLATE_NAME, context(USERNAME_PLACEHOLDER));
+        String[] split = rendered.split(Pattern.quote(USERNAME_PLACEHOLDER), -1);
+        if (split.length < 2) {
+            log.warn("Template {} does not render the username verbatim, falling back to per-message rendering", TEMPLATE_NAME);
+            return;
+        }
+        parts = split;
+        log.info("Pre-rendered template {} into {} static parts", TEMPLATE_NAME, parts.length);
+    }
+
+    public String render(String username) {
+        if (parts == null) {
+            return templateEngine.process(TEMPLATE_NAME, context(username));
+        }
+        String escaped = username == null ? "" : HtmlUtils.htmlEscape(username, "UTF-8");
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        buffer.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            buffer.append(escaped).append(parts[i]);
+        }
+        return buffer.toString();
+    }
+
+    private static Context context(String username) {
+        Context context = new Context();
+        context.setVariable("username", username);
+        context.setVariable("subject", SUBJECT);
+        return context;
+    }
+}
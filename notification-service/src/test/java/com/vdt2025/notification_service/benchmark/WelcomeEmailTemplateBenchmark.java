@@ -0,0 +1,75 @@
+package com.vdt2025.notification_service.benchmark;
+
+import com.vdt2025.notification_service.service.WelcomeEmailTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh số email chào mừng render được mỗi giây: Thymeleaf process mỗi email (cách cũ)
+ * và template đã render sẵn (WelcomeEmailTemplate).
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.vdt2025.notification_service.benchmark.WelcomeEmailTemplateBenchmark
+ * main() chạy benchmark ngay trong JVM của exec:java (forks = 0) vì JVM fork ra
+ * không thấy classpath test của exec:java.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WelcomeEmailTemplateBenchmark {
+
+    TemplateEngine templateEngine;
+    WelcomeEmailTemplate welcomeEmailTemplate;
+    int counter;
+
+    @Setup
+    public void setup() {
+        // Cấu hình giống mặc định của Spring Boot (classpath:/templates/*.html, có cache template)
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        welcomeEmailTemplate = new WelcomeEmailTemplate(templateEngine);
+        welcomeEmailTemplate.init();
+    }
+
+    private String nextUsername() {
+        return "người_dùng_" + (counter++ & 1023);
+    }
+
+    @Benchmark
+    public String thymeleafPerMessage() {
+        Context context = new Context();
+        context.setVariable("username", nextUsername());
+        context.setVariable("subject", WelcomeEmailTemplate.SUBJECT);
+        return templateEngine.process(WelcomeEmailTemplate.TEMPLATE_NAME, context);
+    }
+
+    @Benchmark
+    public String preRendered() {
+        return welcomeEmailTemplate.render(nextUsername());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WelcomeEmailTemplateBenchmark.class.getSimpleName())
+                .forks(0)
+                .build()).run();
+    }
+}
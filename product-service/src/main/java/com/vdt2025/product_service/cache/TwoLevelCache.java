@@ -0,0 +1,320 @@
+package com.vdt2025.product_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache hai tầng: L1 Caffeine trong heap, L2 là RedisCache dùng chung giữa các instance.
+ * Đọc: L1 -> L2 (nạp ngược vào L1). Ghi/xóa: cập nhật L2, L1 và phát thông điệp hủy
+ * để các instance khác bỏ bản ghi cục bộ tương ứng.
+ * <p>
+ * Với @Cacheable(sync = true), các lần miss đồng thời cho cùng một key chỉ chạy một lần nạp (single-flight),
+ * các request còn lại chờ kết quả đó. Key đang được đọc nhiều được nạp lại sớm ở nền trước khi bản ghi
+ * trong Redis hết hạn, theo thuật toán XFetch: làm mới khi now - delta * beta * ln(rand) >= expiry,
+ * với delta là thời gian nạp trung bình, nên key càng gần hết hạn và càng tốn thời gian nạp thì càng dễ được làm mới.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    // Nhận key cần hủy trên các instance khác, null nghĩa là xóa toàn bộ cache
+    private final Consumer<Object> invalidationPublisher;
+    // TTL của bản ghi trong Redis và hàm đọc thời gian sống còn lại (ms, âm nếu không có)
+    private final Duration remoteTtl;
+    private final ToLongFunction<Object> remainingTtlLookup;
+    private final Executor refreshExecutor;
+    // 0 là tắt làm mới sớm, lớn hơn 1 là làm mới sớm hơn
+    private final double earlyRefreshBeta;
+
+    // Lượt nạp đang chạy theo key, các request miss cùng key chờ trên future này
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    // Thời điểm (epoch ms) bản ghi Redis của key hết hạn, theo những gì instance này biết
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Long> remoteExpiry;
+    // Thời gian nạp trung bình (EWMA, nano giây), là delta của XFetch
+    private final AtomicLong averageLoadNanos = new AtomicLong();
+    // Đồng hồ tăng dần cho các lần hủy: lượt nạp bắt đầu trước lần hủy của key thì không được ghi kết quả
+    private final AtomicLong invalidationClock = new AtomicLong();
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Long> invalidatedAt;
+    private volatile long clearedAt;
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+                         Cache remote,
+                         Consumer<Object> invalidationPublisher,
+                         Duration remoteTtl,
+                         ToLongFunction<Object> remainingTtlLookup,
+                         Executor refreshExecutor,
+                         double earlyRefreshBeta,
+                         long maximumSize) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteTtl = remoteTtl;
+        this.remainingTtlLookup = remainingTtlLookup;
+        this.refreshExecutor = refreshExecutor;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.remoteExpiry = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(remoteTtl)
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(remoteTtl)
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(key, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            refreshEarlyIfNeeded(key, valueLoader);
+            return (T) value;
+        }
+
+        // Không dùng RedisCache.get(key, loader): phương thức đó khóa toàn bộ cache, không theo từng key
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return (T) await(key, existing, valueLoader);
+        }
+        try {
+            Object loaded = readThrough(key, valueLoader);
+            flight.complete(loaded);
+            return (T) loaded;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // Lỗi của lượt nạp chung có thể chỉ đúng với người gọi đó (ví dụ không có quyền),
+    // nên khi lượt chung thất bại, mỗi request tự nạp lại thay vì nhận cùng lỗi
+    private Object await(Object key, CompletableFuture<Object> flight, Callable<?> valueLoader) {
+        try {
+            return flight.join();
+        } catch (CompletionException | CancellationException e) {
+            return readThrough(key, valueLoader);
+        }
+    }
+
+    private Object readThrough(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(key, wrapper.get());
+            rememberRemoteExpiry(key);
+            refreshEarlyIfNeeded(key, valueLoader);
+            return wrapper.get();
+        }
+        return load(key, valueLoader);
+    }
+
+    /*
+     * Chạy loader (phương thức @Cacheable) và ghi kết quả vào cả hai tầng.
+     * Nếu key bị hủy (cập nhật/xóa) sau khi lượt nạp bắt đầu, giá trị có thể đọc trước thay đổi nên không được ghi.
+     * Kiểm tra lại sau khi ghi: lần hủy đánh dấu trước rồi mới xóa Redis, nên hoặc lượt nạp thấy dấu và tự xóa,
+     * hoặc lần hủy xóa sau khi giá trị đã được ghi.
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        long startedAt = invalidationClock.get();
+        long start = System.nanoTime();
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        recordLoadTime(System.nanoTime() - start);
+        if (loaded != null && !invalidatedSince(key, startedAt)) {
+            // Giá trị vừa đọc từ nguồn: không cần phát thông điệp hủy cho các instance khác
+            remote.put(key, loaded);
+            local.put(key, loaded);
+            remoteExpiry.put(key, System.currentTimeMillis() + remoteTtl.toMillis());
+            if (invalidatedSince(key, startedAt)) {
+                remote.evict(key);
+                local.invalidate(key);
+                remoteExpiry.invalidate(key);
+            }
+        }
+        return loaded;
+    }
+
+    private void refreshEarlyIfNeeded(Object key, Callable<?> valueLoader) {
+        if (earlyRefreshBeta <= 0) {
+            return;
+        }
+        Long expiresAt = remoteExpiry.getIfPresent(key);
+        long delta = averageLoadNanos.get();
+        if (expiresAt == null || delta == 0) {
+            return;
+        }
+        // -ln(rand) với rand trong (0, 1]: phần lớn rất nhỏ, thỉnh thoảng lớn, nên chỉ vài request làm mới
+        double gapMillis = -delta / 1_000_000.0 * earlyRefreshBeta * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        if (System.currentTimeMillis() + gapMillis < expiresAt || !refreshing.add(key)) {
+            return;
+        }
+        // Loader có thể kiểm tra người dùng hiện tại, nên mang SecurityContext sang luồng làm mới
+        Runnable refresh = DelegatingSecurityContextRunnable.create(() -> {
+            try {
+                load(key, valueLoader);
+            } catch (RuntimeException e) {
+                log.debug("Early refresh of {}::{} failed: {}", name, key, e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        }, null);
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    // Bản ghi do instance khác nạp: hỏi Redis thời gian sống còn lại để biết lúc nào nên làm mới sớm
+    private void rememberRemoteExpiry(Object key) {
+        if (earlyRefreshBeta <= 0 || remoteExpiry.getIfPresent(key) != null) {
+            return;
+        }
+        try {
+            long remaining = remainingTtlLookup.applyAsLong(key);
+            if (remaining > 0) {
+                remoteExpiry.put(key, System.currentTimeMillis() + remaining);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not read remaining TTL of {}::{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private boolean invalidatedSince(Object key, long startedAt) {
+        if (clearedAt > startedAt) {
+            return true;
+        }
+        Long at = invalidatedAt.getIfPresent(key);
+        return at != null && at > startedAt;
+    }
+
+    private void markInvalidated(Object key) {
+        invalidatedAt.put(key, invalidationClock.incrementAndGet());
+    }
+
+    private void markCleared() {
+        clearedAt = invalidationClock.incrementAndGet();
+    }
+
+    // Trung bình trượt: mẫu mới chiếm 1/8
+    private void recordLoadTime(long nanos) {
+        averageLoadNanos.getAndUpdate(current -> current == 0 ? nanos : current + (nanos - current) / 8);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        markInvalidated(key);
+        remote.put(key, value);
+        if (value != null) {
+            local.put(key, value);
+            remoteExpiry.put(key, System.currentTimeMillis() + remoteTtl.toMillis());
+        } else {
+            local.invalidate(key);
+        }
+        invalidationPublisher.accept(key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        markInvalidated(key);
+        remote.evict(key);
+        local.invalidate(key);
+        remoteExpiry.invalidate(key);
+        invalidationPublisher.accept(key);
+    }
+
+    @Override
+    public void clear() {
+        markCleared();
+        remote.clear();
+        local.invalidateAll();
+        remoteExpiry.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    // Gọi khi instance khác thông báo bản ghi đã thay đổi, chỉ xóa tầng cục bộ
+    void evictLocal(Object key) {
+        markInvalidated(key);
+        local.invalidate(key);
+        remoteExpiry.invalidate(key);
+    }
+
+    // Đánh dấu trước khi xóa hàng loạt trong Redis, để lượt nạp đang chạy không ghi lại giá trị cũ
+    void markInvalidatedAll(Collection<?> keys) {
+        keys.forEach(this::markInvalidated);
+    }
+
+    void evictLocalAll(Collection<?> keys) {
+        local.invalidateAll(keys);
+        remoteExpiry.invalidateAll(keys);
+    }
+
+    void clearLocal() {
+        markCleared();
+        local.invalidateAll();
+        remoteExpiry.invalidateAll();
+    }
+}
@@ -0,0 +1,189 @@
+package com.vdt2025.product_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vdt2025.product_service.configuration.LocalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CacheManager bọc RedisCacheManager: các cache trong app.cache.local.names có thêm tầng L1 Caffeine,
+ * các cache còn lại dùng thẳng Redis.
+ * Thông điệp hủy được phát qua Redis pub/sub với định dạng "instanceId|cacheName|key",
+ * key rỗng nghĩa là xóa toàn bộ cache. Instance bỏ qua thông điệp của chính nó.
+ * Các lượt làm mới sớm (XFetch) của mọi cache hai tầng chạy trên một pool nhỏ có hàng đợi giới hạn.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+    public static final String INVALIDATION_CHANNEL = "cache-invalidation";
+    static final String SEPARATOR = "|";
+    // Số khóa trong một lệnh DEL khi hủy hàng loạt
+    static final int BULK_EVICT_BATCH_SIZE = 1000;
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final LocalCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                StringRedisTemplate redisTemplate,
+                                LocalCacheProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger counter = new AtomicInteger();
+        // Hàng đợi đầy thì bỏ qua lượt làm mới sớm: key vẫn được nạp lại khi hết hạn
+        this.refreshExecutor = new ThreadPoolExecutor(
+                properties.getRefreshThreads(), properties.getRefreshThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getRefreshQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdown();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!properties.getNames().contains(name)) {
+            return redisCacheManager.getCache(name);
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(redisCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return names;
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        // Xuất chỉ số hit/miss của tầng L1 qua actuator
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name + ".local");
+        RedisCache remote = (RedisCache) redisCacheManager.getCache(name);
+        String keyPrefix = remote.getCacheConfiguration().getKeyPrefixFor(name);
+        return new TwoLevelCache(name, local, remote, key -> publish(name, key),
+                remote.getCacheConfiguration().getTtl(),
+                key -> remainingTtl(keyPrefix + key),
+                refreshExecutor,
+                properties.getEarlyRefreshBeta(),
+                properties.getMaximumSize());
+    }
+
+    /**
+     * Hủy nhiều key của một cache cùng lúc, sau khi transaction hiện tại commit (nếu có):
+     * xóa khóa Redis theo lô bằng DEL nhiều khóa, bỏ các key ở L1 của instance này và phát một thông điệp
+     * xóa toàn bộ L1 cho các instance khác thay vì một thông điệp cho mỗi key.
+     */
+    public void evictAll(String cacheName, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvictAll(cacheName, keys);
+                }
+            });
+            return;
+        }
+        doEvictAll(cacheName, keys);
+    }
+
+    private void doEvictAll(String cacheName, Collection<?> keys) {
+        Cache cache = getCache(cacheName);
+        if (!(cache instanceof TwoLevelCache twoLevelCache)) {
+            keys.forEach(cache::evict);
+            return;
+        }
+        RedisCache remote = (RedisCache) redisCacheManager.getCache(cacheName);
+        String keyPrefix = remote.getCacheConfiguration().getKeyPrefixFor(cacheName);
+        List<String> redisKeys = keys.stream().map(key -> keyPrefix + key).toList();
+        twoLevelCache.markInvalidatedAll(keys);
+        try {
+            for (int from = 0; from < redisKeys.size(); from += BULK_EVICT_BATCH_SIZE) {
+                redisTemplate.delete(redisKeys.subList(from, Math.min(from + BULK_EVICT_BATCH_SIZE, redisKeys.size())));
+            }
+        } catch (RuntimeException e) {
+            // Các khóa còn lại sẽ tự hết hạn theo TTL của Redis
+            log.warn("Could not delete {} entries of cache {}: {}", keys.size(), cacheName, e.getMessage());
+        }
+        twoLevelCache.evictLocalAll(keys);
+        publish(cacheName, null);
+        log.info("Evicted {} entries from cache {}", keys.size(), cacheName);
+    }
+
+    // Thời gian sống còn lại (ms) của khóa Redis, âm nếu khóa không tồn tại hoặc không có TTL
+    private long remainingTtl(String redisKey) {
+        Long ttl = redisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+        return ttl == null ? -1 : ttl;
+    }
+
+    private void publish(String cacheName, Object key) {
+        String message = String.join(SEPARATOR, instanceId, cacheName, key == null ? "" : key.toString());
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException e) {
+            // Các instance khác sẽ tự hết hạn theo TTL của L1
+            log.warn("Could not publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts[2].isEmpty()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.vdt2025.product_service.configuration;
 
 import com.vdt2025.product_service.entity.Category;
 import com.vdt2025.product_service.repository.CategoryRepository;
+import com.vdt2025.product_service.service.DefaultCategoryProvider;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -18,21 +19,24 @@ import org.springframework.context.annotation.Configuration;
 public class ApplicationInitConfig {
 
     CategoryRepository categoryRepository;
+    DefaultCategoryProvider defaultCategoryProvider;
 
     @Bean
     ApplicationRunner applicationRunner(@Value("${app.default-admin-id}") String adminId) {
         return args -> {
             // Tạo category mặc định nếu chưa có
-            String defaultCategoryName = "Chưa phân loại";
-            if (!categoryRepository.existsByName(defaultCategoryName)) {
-                Category defaultCategory = Category.builder()
+            String defaultCategoryName = DefaultCategoryProvider.DEFAULT_CATEGORY_NAME;
+            Category defaultCategory = categoryRepository.findByName(defaultCategoryName).orElse(null);
+            if (defaultCategory == null) {
+                defaultCategory = categoryRepository.save(Category.builder()
                         .name(defaultCategoryName)
                         .description("Danh mục mặc định cho các sản phẩm chưa được phân loại")
                         .createdBy(adminId)
-                        .build();
-                categoryRepository.save(defaultCategory);
+                        .build());
                 log.info("Default category created successfully.");
             }
+            // Giữ id danh mục mặc định để xóa danh mục không phải tìm theo tên
+            defaultCategoryProvider.remember(defaultCategory.getId());
         };
     }
 }
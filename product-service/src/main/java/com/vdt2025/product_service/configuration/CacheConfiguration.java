@@ -1,47 +1,95 @@
 package com.vdt2025.product_service.configuration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vdt2025.product_service.cache.TwoLevelCacheManager;
+import com.vdt2025.product_service.service.SearchResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 
 import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
+    static final Set<String> SEARCH_CACHES = Set.of(SearchResultCache.PRODUCT_SEARCH, SearchResultCache.CATEGORY_SEARCH);
 
     @Bean
     public SecurityEvaluationContextExtension securityEvaluationContextExtension() {
         return new SecurityEvaluationContextExtension();
     }
 
+    // Cấu hình riêng theo tên cache:
+    // - cache kết quả tìm kiếm có TTL ngắn hơn: khóa cũ (generation cũ) chỉ chờ hết hạn
+    // - các cache trong app.cache.binary-caches lưu giá trị bằng Smile thay cho JSON
     @Bean
-    public RedisCacheConfiguration redisCacheConfiguration() {
-        // 1. Tạo một ObjectMapper tùy chỉnh
-        ObjectMapper objectMapper = new ObjectMapper()
-                // 2. Đăng ký module để xử lý LocalDateTime, ZonedDateTime, v.v.
-                .registerModule(new JavaTimeModule());
+    public RedisCacheManagerBuilderCustomizer cacheCustomizer(
+            RedisCacheConfiguration redisCacheConfiguration,
+            @Value("${app.cache.search-ttl:PT2M}") Duration searchTtl,
+            @Value("${app.cache.binary-caches:}") List<String> binaryCaches) {
+        return builder -> {
+            var binaryValues = RedisSerializationContext.SerializationPair.fromSerializer(RedisCacheSerializers.binary());
+            Set<String> cacheNames = new HashSet<>(SEARCH_CACHES);
+            cacheNames.addAll(binaryCaches);
+            cacheNames.forEach(cacheName -> {
+                RedisCacheConfiguration config = redisCacheConfiguration;
+                if (SEARCH_CACHES.contains(cacheName)) {
+                    config = config.entryTtl(searchTtl);
+                }
+                if (binaryCaches.contains(cacheName)) {
+                    config = config.serializeValuesWith(binaryValues);
+                }
+                builder.withCacheConfiguration(cacheName, config);
+            });
+        };
+    }
 
-        // 2. Lưu thông tin kiểu dữ liệu vào JSON để deserialization chính xác
-        objectMapper.activateDefaultTyping(
-                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
-                ObjectMapper.DefaultTyping.NON_FINAL
-        );
+    // Tự khai báo CacheManager nên phải tự áp dụng các RedisCacheManagerBuilderCustomizer
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             RedisCacheConfiguration redisCacheConfiguration,
+                                             ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers,
+                                             StringRedisTemplate redisTemplate,
+                                             LocalCacheProperties localCacheProperties,
+                                             MeterRegistry meterRegistry) {
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        RedisCacheManager redisCacheManager = builder.build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, redisTemplate, localCacheProperties, meterRegistry);
+    }
 
-        // 3. Tạo serializer với ObjectMapper đã được cấu hình
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    // Lắng nghe thông điệp hủy cache cục bộ từ các instance khác
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
 
-        // 4. Sử dụng serializer này cho cấu hình cache
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration() {
+        // Mặc định lưu giá trị dạng JSON kèm thông tin kiểu dữ liệu
         return RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues()
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisCacheSerializers.json()));
     }
 }
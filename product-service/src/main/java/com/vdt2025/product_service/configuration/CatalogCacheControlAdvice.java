@@ -0,0 +1,65 @@
+package com.vdt2025.product_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Gắn Cache-Control cho các trang danh sách sản phẩm/danh mục: nội dung không phụ thuộc người gọi
+ * nên được đánh dấu public để api-gateway dùng chung giữa các người dùng.
+ * Chi tiết sản phẩm (/products/{id}) không nằm trong danh sách này: nó đã được phục vụ từ cache hai tầng
+ * "products" của service và được evict đúng theo id khi sản phẩm thay đổi, trong khi cache ở gateway
+ * chỉ vô hiệu hóa theo cả tag "products" nên sẽ giữ bản cũ hoặc xóa thừa mọi trang chi tiết.
+ */
+@ControllerAdvice
+public class CatalogCacheControlAdvice implements ResponseBodyAdvice<Object> {
+    static final List<String> CATALOG_READ_PATHS = List.of(
+            "/products", "/products/search", "/products/scroll", "/categories", "/categories/*");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    // Thời gian gateway/client dùng lại trang mà không hỏi lại
+    @Value("${app.catalog-cache.max-age:PT30S}")
+    private Duration maxAge;
+
+    // Sau max-age vẫn được trả trang cũ trong khoảng này trong lúc làm mới ở nền
+    @Value("${app.catalog-cache.stale-while-revalidate:PT60S}")
+    private Duration staleWhileRevalidate;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (HttpMethod.GET.equals(request.getMethod())
+                && response instanceof ServletServerHttpResponse servletResponse
+                && servletResponse.getServletResponse().getStatus() == HttpStatus.OK.value()
+                && isCatalogRead(request.getURI().getPath())) {
+            response.getHeaders().setCacheControl(CacheControl.maxAge(maxAge)
+                    .cachePublic()
+                    .staleWhileRevalidate(staleWhileRevalidate));
+        }
+        return body;
+    }
+
+    private boolean isCatalogRead(String path) {
+        return CATALOG_READ_PATHS.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+}
@@ -0,0 +1,134 @@
+package com.vdt2025.product_service.configuration;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Nhận danh tính mà api-gateway đã xác thực từ JWT và gửi kèm dưới dạng header có chữ ký HMAC.
+ * Chữ ký hợp lệ thì dựng lại Authentication như khi giải mã JWT (cùng claim userId, scope, iat)
+ * nên CurrentUserResolver và @PreAuthorize không đổi; chữ ký sai hoặc thiếu thì bỏ qua header
+ * và để BearerTokenAuthenticationFilter tự giải mã token như trước (gọi trực tiếp không qua gateway).
+ */
+@Slf4j
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+    // Đánh dấu request đã xác thực bằng header của gateway để không giải mã lại JWT
+    public static final String AUTHENTICATED_ATTRIBUTE = GatewayIdentityFilter.class.getName() + ".AUTHENTICATED";
+
+    static final String USER_ID = "X-User-Id";
+    static final String USER_NAME = "X-User-Name";
+    static final String USER_ROLES = "X-User-Roles";
+    static final String ISSUED_AT = "X-User-Issued-At";
+    static final String EXPIRES_AT = "X-User-Expires-At";
+    static final String TIMESTAMP = "X-Auth-Timestamp";
+    static final String SIGNATURE = "X-Auth-Signature";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String SCOPE_CLAIM = "scope";
+
+    private final String secret;
+    private final Duration maxSkew;
+    private final JwtAuthenticationConverter jwtAuthenticationConverter;
+
+    public GatewayIdentityFilter(String secret, Duration maxSkew, JwtAuthenticationConverter jwtAuthenticationConverter) {
+        this.secret = secret;
+        this.maxSkew = maxSkew;
+        this.jwtAuthenticationConverter = jwtAuthenticationConverter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String signature = request.getHeader(SIGNATURE);
+        if (StringUtils.hasText(secret) && StringUtils.hasText(signature)) {
+            Jwt jwt = verify(request, signature);
+            if (Objects.nonNull(jwt)) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(jwtAuthenticationConverter.convert(jwt));
+                SecurityContextHolder.setContext(context);
+                request.setAttribute(AUTHENTICATED_ATTRIBUTE, Boolean.TRUE);
+            } else {
+                log.debug("Ignoring gateway identity headers with invalid signature for {}", request.getRequestURI());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Trả về null nếu chữ ký sai, header thiếu, quá hạn hoặc token đã hết hạn
+    private Jwt verify(HttpServletRequest request, String signature) {
+        String userId = Objects.requireNonNullElse(request.getHeader(USER_ID), "");
+        String username = request.getHeader(USER_NAME);
+        String roles = Objects.requireNonNullElse(request.getHeader(USER_ROLES), "");
+        try {
+            long issuedAt = Long.parseLong(request.getHeader(ISSUED_AT));
+            long expiresAt = Long.parseLong(request.getHeader(EXPIRES_AT));
+            long timestamp = Long.parseLong(request.getHeader(TIMESTAMP));
+            if (!StringUtils.hasText(username)) {
+                return null;
+            }
+
+            String payload = String.join("\n", userId, username, roles,
+                    Long.toString(issuedAt), Long.toString(expiresAt), Long.toString(timestamp));
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            byte[] expected = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            // So sánh thời gian hằng để không lộ chữ ký qua thời gian phản hồi
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature))) {
+                return null;
+            }
+
+            // Giới hạn thời gian dùng lại header đã ký nếu bị bắt được trong mạng nội bộ
+            Instant now = Instant.now();
+            if (Math.abs(now.getEpochSecond() - timestamp) > maxSkew.toSeconds()
+                    || !Instant.ofEpochSecond(expiresAt).isAfter(now)) {
+                return null;
+            }
+
+            Jwt.Builder builder = Jwt.withTokenValue(resolveTokenValue(request))
+                    .header("alg", "HS512")
+                    .subject(username)
+                    .issuedAt(Instant.ofEpochSecond(issuedAt))
+                    .expiresAt(Instant.ofEpochSecond(expiresAt));
+            if (StringUtils.hasText(userId)) {
+                builder.claim(USER_ID_CLAIM, userId);
+            }
+            if (StringUtils.hasText(roles)) {
+                builder.claim(SCOPE_CLAIM, roles);
+            }
+            return builder.build();
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    // Giữ token gốc (gateway vẫn chuyển tiếp Authorization) để Feign gửi tiếp cho service khác
+    private String resolveTokenValue(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (Objects.nonNull(authorization) && authorization.startsWith(BEARER_PREFIX)) {
+            return authorization.substring(BEARER_PREFIX.length());
+        }
+        return "gateway";
+    }
+}
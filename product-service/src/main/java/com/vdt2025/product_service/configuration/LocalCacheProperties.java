@@ -0,0 +1,31 @@
+package com.vdt2025.product_service.configuration;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+@Component
+@ConfigurationProperties(prefix = "app.cache.local")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LocalCacheProperties {
+    // Các cache có thêm tầng cục bộ (L1) phía trước Redis
+    Set<String> names = new HashSet<>(Set.of("products", "categories"));
+    // Số bản ghi tối đa trong mỗi cache cục bộ
+    long maximumSize = 10_000;
+    // Giới hạn thời gian một bản ghi cục bộ có thể cũ nếu lỡ mất thông điệp hủy (pub/sub không đảm bảo giao)
+    Duration ttl = Duration.ofMinutes(1);
+    // Hệ số beta của XFetch (làm mới sớm key đang được đọc), 0 là tắt
+    double earlyRefreshBeta = 1.0;
+    // Pool chạy các lượt làm mới sớm ở nền
+    int refreshThreads = 2;
+    int refreshQueueCapacity = 100;
+}
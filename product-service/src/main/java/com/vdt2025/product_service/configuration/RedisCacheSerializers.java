@@ -0,0 +1,66 @@
+package com.vdt2025.product_service.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Các serializer cho giá trị cache Redis.
+ * - json: JSON kèm tên lớp (định dạng mặc định từ trước tới nay).
+ * - binary: Smile (JSON nhị phân) cùng mô hình dữ liệu, nhỏ hơn và (de)serialize nhanh hơn.
+ *   Khi đọc vẫn nhận được giá trị JSON cũ nên có thể chuyển một cache sang nhị phân mà không cần xóa Redis.
+ */
+public final class RedisCacheSerializers {
+    // Mọi dữ liệu Smile đều bắt đầu bằng ":)\n"
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    private RedisCacheSerializers() {
+    }
+
+    public static RedisSerializer<Object> json() {
+        return new GenericJackson2JsonRedisSerializer(typedMapper(new ObjectMapper()));
+    }
+
+    public static RedisSerializer<Object> binary() {
+        RedisSerializer<Object> smile = new GenericJackson2JsonRedisSerializer(typedMapper(new ObjectMapper(new SmileFactory())));
+        RedisSerializer<Object> legacyJson = json();
+        return new RedisSerializer<>() {
+            @Override
+            public byte[] serialize(Object value) throws SerializationException {
+                return smile.serialize(value);
+            }
+
+            @Override
+            public Object deserialize(byte[] bytes) throws SerializationException {
+                return isSmile(bytes) ? smile.deserialize(bytes) : legacyJson.deserialize(bytes);
+            }
+        };
+    }
+
+    private static ObjectMapper typedMapper(ObjectMapper objectMapper) {
+        // Đăng ký module để xử lý LocalDateTime, ZonedDateTime, v.v.
+        objectMapper.registerModule(new JavaTimeModule());
+        // Lưu thông tin kiểu dữ liệu để deserialization chính xác
+        objectMapper.activateDefaultTyping(
+                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL
+        );
+        return objectMapper;
+    }
+
+    private static boolean isSmile(byte[] bytes) {
+        if (bytes == null || bytes.length < SMILE_HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < SMILE_HEADER.length; i++) {
+            if (bytes[i] != SMILE_HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
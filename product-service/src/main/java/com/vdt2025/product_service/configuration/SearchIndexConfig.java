@@ -0,0 +1,42 @@
+package com.vdt2025.product_service.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Tạo các chỉ mục tìm kiếm văn bản mà Hibernate (ddl-auto) không tự sinh được.
+ * - search_vector: cột tsvector sinh tự động từ name (trọng số A) và description (trọng số B),
+ *   Postgres tự cập nhật khi ghi sản phẩm nên không cần đồng bộ từ ứng dụng.
+ * - Chỉ mục trigram trên lower(name) phục vụ các bộ lọc LIKE '%x%' hiện có.
+ */
+@Configuration
+@Slf4j
+public class SearchIndexConfig {
+    static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "ALTER TABLE product ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS ("
+                    + "setweight(to_tsvector('simple', coalesce(name, '')), 'A') || "
+                    + "setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED",
+            "CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector)",
+            "CREATE INDEX IF NOT EXISTS idx_product_name_trgm ON product USING GIN (lower(name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_category_name_trgm ON category USING GIN (lower(name) gin_trgm_ops)"
+    );
+
+    @Bean
+    ApplicationRunner searchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        return args -> STATEMENTS.forEach(statement -> {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                // Không chặn khởi động nếu thiếu quyền tạo extension, chỉ mất chỉ mục tăng tốc
+                log.warn("Could not apply search index statement [{}]: {}", statement, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.vdt2025.product_service.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vdt2025.common_dto.dto.response.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserCacheConfig {
+
+    // Cache cục bộ (near cache) đặt trước UserServiceClient, tránh gọi Feign sang user-service ở mỗi request
+    @Bean
+    public Cache<String, UserResponse> userLookupCache(UserCacheProperties properties, MeterRegistry meterRegistry) {
+        Cache<String, UserResponse> cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        // Xuất các chỉ số hit/miss/eviction qua actuator (cache.gets, cache.evictions, ...)
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "userLookup");
+    }
+}
@@ -1,10 +1,14 @@
 package com.vdt2025.product_service.controller;
 
 import com.vdt2025.common_dto.dto.response.ApiResponse;
+import com.vdt2025.product_service.dto.request.product.ProductBatchUpdateRequest;
 import com.vdt2025.product_service.dto.request.product.ProductCreationRequest;
 import com.vdt2025.product_service.dto.request.product.ProductFilterRequest;
 import com.vdt2025.product_service.dto.request.product.ProductUpdateRequest;
+import com.vdt2025.product_service.dto.response.BatchResultResponse;
+import com.vdt2025.product_service.dto.response.CursorPageResponse;
 import com.vdt2025.product_service.dto.response.ProductResponse;
+import com.vdt2025.product_service.service.ProductBatchService;
 import com.vdt2025.product_service.service.ProductServiceImp;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +16,12 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/products")
 @RequiredArgsConstructor
@@ -22,6 +29,7 @@ import org.springframework.web.multipart.MultipartFile;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ProductController {
     ProductServiceImp productService;
+    ProductBatchService productBatchService;
 
     // Thêm sản phẩm mới
     @PostMapping
@@ -33,6 +41,24 @@ public class ProductController {
                 .build();
     }
 
+    // Thêm nhiều sản phẩm trong một yêu cầu, trả về kết quả cho từng sản phẩm
+    @PostMapping("/batch")
+    public ApiResponse<BatchResultResponse> createProducts(@RequestBody List<ProductCreationRequest> requests) {
+        log.info("Creating {} products in batch", requests.size());
+        return ApiResponse.<BatchResultResponse>builder()
+                .result(productBatchService.createProducts(requests))
+                .build();
+    }
+
+    // Cập nhật nhiều sản phẩm trong một yêu cầu, trả về kết quả cho từng sản phẩm
+    @PutMapping("/batch")
+    public ApiResponse<BatchResultResponse> updateProducts(@RequestBody List<ProductBatchUpdateRequest> requests) {
+        log.info("Updating {} products in batch", requests.size());
+        return ApiResponse.<BatchResultResponse>builder()
+                .result(productBatchService.updateProducts(requests))
+                .build();
+    }
+
     // Cập nhật thumbnail sản phẩm
     @PostMapping("/{productId}/thumbnail")
     public ApiResponse<String> updateProductThumbnail(
@@ -90,4 +116,32 @@ public class ProductController {
                 .result(result)
                 .build();
     }
+
+    // Tìm kiếm toàn văn theo tên và mô tả, kết quả xếp hạng theo mức độ liên quan
+    @GetMapping("/search")
+    public ApiResponse<List<ProductResponse>> searchProducts(
+            @RequestParam("q") String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Full-text searching products: {}", keyword);
+        var result = productService.fullTextSearch(keyword, page, size);
+        return ApiResponse.<List<ProductResponse>>builder()
+                .result(result)
+                .build();
+    }
+
+    // Lấy danh sách sản phẩm theo cursor (keyset), không đếm tổng số bản ghi
+    @GetMapping("/scroll")
+    public ApiResponse<CursorPageResponse<ProductResponse>> scrollProducts(
+            @ModelAttribute ProductFilterRequest filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "DESC") Sort.Direction direction) {
+        log.info("Scrolling products with filter: {}", filter);
+        var result = productService.scrollProducts(filter, cursor, size, sortBy, direction);
+        return ApiResponse.<CursorPageResponse<ProductResponse>>builder()
+                .result(result)
+                .build();
+    }
 }
@@ -3,6 +3,8 @@ package com.vdt2025.product_service.dto.request.category;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
+import java.util.StringJoiner;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -11,4 +13,12 @@ import lombok.experimental.FieldDefaults;
 public class CategoryFilterRequest {
     String name;
     String createdBy;
+
+    // Khóa cache có cấu trúc: chỉ gồm các điều kiện lọc thực sự có giá trị, đã chuẩn hóa
+    public String toCacheKey() {
+        StringJoiner key = new StringJoiner("&");
+        if (name != null && !name.isBlank()) key.add("name=" + name.trim().toLowerCase());
+        if (createdBy != null && !createdBy.isBlank()) key.add("createdBy=" + createdBy);
+        return key.toString();
+    }
 }
@@ -0,0 +1,14 @@
+package com.vdt2025.product_service.dto.request.product;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ProductBatchUpdateRequest {
+    String id;
+    ProductUpdateRequest product;
+}
@@ -5,6 +5,7 @@ import lombok.experimental.FieldDefaults;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.math.BigDecimal;
+import java.util.StringJoiner;
 
 @Data
 @Builder
@@ -27,4 +28,19 @@ public class ProductFilterRequest {
     String createdFrom;
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     String createdTo;
+
+    // Khóa cache có cấu trúc: chỉ gồm các điều kiện lọc thực sự có giá trị, đã chuẩn hóa
+    public String toCacheKey() {
+        StringJoiner key = new StringJoiner("&");
+        if (name != null && !name.isBlank()) key.add("name=" + name.trim().toLowerCase());
+        if (createdBy != null && !createdBy.isBlank()) key.add("createdBy=" + createdBy);
+        if (isActive != null) key.add("active=" + isActive);
+        if (priceFrom != null) key.add("priceFrom=" + priceFrom.stripTrailingZeros().toPlainString());
+        if (priceTo != null) key.add("priceTo=" + priceTo.stripTrailingZeros().toPlainString());
+        if (quantityFrom != null) key.add("quantityFrom=" + quantityFrom);
+        if (quantityTo != null) key.add("quantityTo=" + quantityTo);
+        if (createdFrom != null) key.add("createdFrom=" + createdFrom);
+        if (createdTo != null) key.add("createdTo=" + createdTo);
+        return key.toString();
+    }
 }
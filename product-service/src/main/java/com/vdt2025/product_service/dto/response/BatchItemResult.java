@@ -0,0 +1,21 @@
+package com.vdt2025.product_service.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    // Vị trí của phần tử trong danh sách gửi lên
+    int index;
+    String id;
+    boolean success;
+    // Mã lỗi theo ErrorCode khi thất bại
+    Integer code;
+    String message;
+}
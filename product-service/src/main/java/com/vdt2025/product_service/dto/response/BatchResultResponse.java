@@ -0,0 +1,18 @@
+package com.vdt2025.product_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchResultResponse {
+    int total;
+    int succeeded;
+    int failed;
+    List<BatchItemResult> items;
+}
@@ -0,0 +1,17 @@
+package com.vdt2025.product_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+// Dạng lưu cache của một trang kết quả, PageImpl không deserialize được bằng Jackson
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CachedPage<T> {
+    List<T> content;
+    long totalElements;
+}
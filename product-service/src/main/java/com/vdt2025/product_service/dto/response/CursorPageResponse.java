@@ -0,0 +1,19 @@
+package com.vdt2025.product_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    // Token mờ để lấy trang tiếp theo, null nếu đã hết dữ liệu
+    String nextCursor;
+}
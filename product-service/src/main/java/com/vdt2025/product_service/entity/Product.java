@@ -18,6 +18,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@Table(indexes = {
+        // Phục vụ phân trang keyset theo (createdAt, id) và (price, id)
+        @Index(name = "idx_product_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_product_price_id", columnList = "price, id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -35,9 +35,15 @@ public enum ErrorCode {
     // Lỗi danh mục (15xx)
     CATEGORY_NOT_FOUND(1501, "Category not found", HttpStatus.NOT_FOUND),
     CATEGORY_EXISTED(1502, "Category already exists", HttpStatus.CONFLICT),
+    DEFAULT_CATEGORY_CANNOT_BE_DELETED(1503, "Default category cannot be deleted", HttpStatus.BAD_REQUEST),
     // Lỗi sản phẩm (16xx)
     PRODUCT_NOT_FOUND(1601, "Product not found", HttpStatus.NOT_FOUND),
     PRODUCT_EXISTED(1602, "Product already exists", HttpStatus.CONFLICT),
+    INVALID_CURSOR(1603, "Invalid pagination cursor", HttpStatus.BAD_REQUEST),
+    INVALID_SORT_KEY(1604, "Sort key must be createdAt or price", HttpStatus.BAD_REQUEST),
+    INVALID_PRODUCT_DATA(1605, "Product name is required, price and quantity must be at least 0", HttpStatus.BAD_REQUEST),
+    BATCH_TOO_LARGE(1606, "Batch contains too many items", HttpStatus.BAD_REQUEST),
+    DUPLICATE_IN_BATCH(1607, "Item is duplicated within the batch", HttpStatus.BAD_REQUEST),
     // Lỗi khác (99xx)
     UNCATEGORIZED_EXCEPTION(9999, "Uncategorized error", HttpStatus.INTERNAL_SERVER_ERROR),
     INVALID_KEY(9998, "Invalid key", HttpStatus.BAD_REQUEST),
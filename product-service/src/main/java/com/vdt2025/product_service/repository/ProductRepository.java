@@ -4,13 +4,35 @@ import com.vdt2025.product_service.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
-public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product> {
-    // Tìm kiếm các sản phẩm thuộc danh mục theo tên
-    @Query(value = "SELECT * FROM product WHERE category_id = :categoryId", nativeQuery = true)
-    List<Product> findAllByCategoryId(String categoryId);
+public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product>,
+        ProductSearchRepository {
+    // Chuyển toàn bộ sản phẩm của một danh mục sang danh mục khác bằng một câu UPDATE,
+    // RETURNING trả về id các sản phẩm bị đổi để hủy cache đúng các bản ghi đó
+    // Không đánh dấu @Modifying vì câu lệnh trả về tập kết quả; @Transactional để không chạy trong transaction chỉ đọc
+    @Transactional
+    @Query(value = "UPDATE product SET category_id = :targetId, updated_at = now() " +
+            "WHERE category_id = :sourceId RETURNING id", nativeQuery = true)
+    List<String> reassignCategory(@Param("sourceId") String sourceId, @Param("targetId") String targetId);
 
     boolean existsByName(String name);
+
+    // Kiểm tra trùng tên cho cả lô bằng một truy vấn
+    @Query("SELECT p.name FROM Product p WHERE p.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    // Tìm kiếm toàn văn trên cột search_vector (xem SearchIndexConfig), xếp hạng theo ts_rank
+    @Query(value = "SELECT p.* FROM product p, to_tsquery('simple', :tsQuery) q " +
+            "WHERE p.search_vector @@ q AND p.active = true " +
+            "ORDER BY ts_rank(p.search_vector, q) DESC, p.id " +
+            "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<Product> fullTextSearch(@Param("tsQuery") String tsQuery,
+                                 @Param("limit") int limit,
+                                 @Param("offset") long offset);
 }
@@ -0,0 +1,16 @@
+package com.vdt2025.product_service.repository;
+
+import com.vdt2025.product_service.dto.response.ProductResponse;
+import com.vdt2025.product_service.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ProductSearchRepository {
+    /**
+     * Tìm kiếm sản phẩm và chiếu thẳng sang ProductResponse trong một truy vấn (join danh mục),
+     * không tạo entity Product/Category nên không có truy vấn N+1 hay chi phí dirty-checking.
+     * Danh mục trong kết quả chỉ có id và name.
+     */
+    Page<ProductResponse> searchProjected(Specification<Product> specification, Pageable pageable);
+}
@@ -0,0 +1,120 @@
+package com.vdt2025.product_service.repository;
+
+import com.vdt2025.product_service.dto.response.CategoryResponse;
+import com.vdt2025.product_service.dto.response.ProductResponse;
+import com.vdt2025.product_service.entity.Category;
+import com.vdt2025.product_service.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+    EntityManager entityManager;
+
+    @Override
+    public Page<ProductResponse> searchProjected(Specification<Product> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        Join<Product, Category> category = categoryJoin(root);
+
+        query.multiselect(
+                root.get("id").alias("id"),
+                root.get("name").alias("name"),
+                root.get("description").alias("description"),
+                root.get("image_name").alias("imageName"),
+                root.get("price").alias("price"),
+                root.get("quantity").alias("quantity"),
+                root.get("createdBy").alias("createdBy"),
+                root.get("createdAt").alias("createdAt"),
+                root.get("updatedAt").alias("updatedAt"),
+                root.get("active").alias("active"),
+                category.get("id").alias("categoryId"),
+                category.get("name").alias("categoryName"));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query)
+                // Chỉ đọc: không giữ snapshot để so sánh khi flush
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, pageable.getPageSize());
+        }
+        List<ProductResponse> content = typedQuery.getResultList().stream()
+                .map(this::toResponse)
+                .toList();
+
+        // Bỏ qua COUNT(*) khi trang hiện tại đã cho biết tổng số (trang đầu chưa đầy hoặc trang cuối)
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(specification));
+    }
+
+    // Dùng lại join danh mục do Specification tạo (lọc theo categoryId) thay vì join lần thứ hai
+    @SuppressWarnings("unchecked")
+    private Join<Product, Category> categoryJoin(Root<Product> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("category")
+                        && join.getJoinType() == JoinType.INNER)
+                .map(join -> (Join<Product, Category>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("category"));
+    }
+
+    private long count(Specification<Product> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        query.select(cb.count(root));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private ProductResponse toResponse(Tuple tuple) {
+        return ProductResponse.builder()
+                .id(tuple.get("id", String.class))
+                .name(tuple.get("name", String.class))
+                .description(tuple.get("description", String.class))
+                .image_name(tuple.get("imageName", String.class))
+                .price(tuple.get("price", BigDecimal.class))
+                .quantity(tuple.get("quantity", Integer.class))
+                .createdBy(tuple.get("createdBy", String.class))
+                .createdAt(tuple.get("createdAt", LocalDateTime.class))
+                .updatedAt(tuple.get("updatedAt", LocalDateTime.class))
+                .active(tuple.get("active", Boolean.class))
+                .category(CategoryResponse.builder()
+                        .id(tuple.get("categoryId", String.class))
+                        .name(tuple.get("categoryName", String.class))
+                        .build())
+                .build();
+    }
+}
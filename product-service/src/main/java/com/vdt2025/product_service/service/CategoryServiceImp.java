@@ -1,14 +1,13 @@
 package com.vdt2025.product_service.service;
 
-import com.vdt2025.common_dto.dto.response.UserResponse;
 import com.vdt2025.common_dto.service.FileServiceClient;
-import com.vdt2025.common_dto.service.UserServiceClient;
+import com.vdt2025.product_service.cache.TwoLevelCacheManager;
+import com.vdt2025.product_service.dto.AuthenticatedUser;
 import com.vdt2025.product_service.dto.request.category.CategoryCreationRequest;
 import com.vdt2025.product_service.dto.request.category.CategoryFilterRequest;
 import com.vdt2025.product_service.dto.request.category.CategoryUpdateRequest;
 import com.vdt2025.product_service.dto.response.CategoryResponse;
 import com.vdt2025.product_service.entity.Category;
-import com.vdt2025.product_service.entity.Product;
 import com.vdt2025.product_service.exception.AppException;
 import com.vdt2025.product_service.exception.ErrorCode;
 import com.vdt2025.product_service.mapper.CategoryMapper;
@@ -42,8 +41,11 @@ public class CategoryServiceImp implements CategoryService{
 //    UserRepository userRepository;
     CategoryRepository categoryRepository;
     CategoryMapper categoryMapper;
-    UserServiceClient userServiceClient;
+    CurrentUserResolver currentUserResolver;
     FileServiceClient fileServiceClient;
+    SearchResultCache searchResultCache;
+    DefaultCategoryProvider defaultCategoryProvider;
+    TwoLevelCacheManager cacheManager;
 //    FileStorageService fileStorageService;
 
     @Override
@@ -56,29 +58,31 @@ public class CategoryServiceImp implements CategoryService{
         }
 
         // Lấy thông tin người dùng hiện tại từ SecurityContext
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserResponse currentUser = userServiceClient.getUserByUsername(username).getResult();
-        log.info("Current user: {}", username);
+        AuthenticatedUser currentUser = currentUserResolver.resolve();
+        log.info("Current user: {}", currentUser.getUsername());
 
         // Tạo danh mục mới
         var category = categoryMapper.toCategory(request);
         category.setCreatedBy(currentUser.getId());
         category = categoryRepository.save(category);
+        searchResultCache.bump(SearchResultCache.ALL_CATEGORIES);
         log.info("Category {} created successfully by user {}", category.getName(), currentUser.getUsername());
         // Trả về thông tin danh mục đã tạo
         return categoryMapper.toCategoryResponse(category);
     }
 
     @Override
-    @Cacheable(value = "categories", key = "#filter.toString() + #pageable.toString()")
     public Page<CategoryResponse> searchCategories(CategoryFilterRequest filter, Pageable pageable) {
-        Specification<Category> spec = CategorySpecification.withFilter(filter);
-        Page<Category> resultPage = categoryRepository.findAll(spec, pageable);
-        return resultPage.map(categoryMapper::toCategoryResponse);
+        return searchResultCache.get(SearchResultCache.CATEGORY_SEARCH, SearchResultCache.ALL_CATEGORIES,
+                filter.toCacheKey(), pageable, () -> {
+                    Specification<Category> spec = CategorySpecification.withFilter(filter);
+                    Page<Category> resultPage = categoryRepository.findAll(spec, pageable);
+                    return resultPage.map(categoryMapper::toCategoryResponse);
+                });
     }
 
     @Override
-    @Cacheable(value = "categories", key = "#id")
+    @Cacheable(value = "categories", key = "#id", sync = true)
     public CategoryResponse getCategoryById(String id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
@@ -111,6 +115,9 @@ public class CategoryServiceImp implements CategoryService{
         // Cập nhật thông tin danh mục
         categoryMapper.updateCategory(category, request);
         category = categoryRepository.save(category);
+        // Sản phẩm trả về có kèm thông tin danh mục nên kết quả tìm sản phẩm cũng phải làm mới
+        searchResultCache.bump(SearchResultCache.ALL_CATEGORIES, SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(id));
 
         log.info("Category {} updated successfully", category.getName());
         return categoryMapper.toCategoryResponse(category);
@@ -138,6 +145,8 @@ public class CategoryServiceImp implements CategoryService{
         String fileName = fileServiceClient.uploadFile(file).getResult();
         category.setImageName(fileName);
         categoryRepository.save(category);
+        searchResultCache.bump(SearchResultCache.ALL_CATEGORIES, SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(id));
         log.info("Thumbnail for category {} updated successfully", category.getName());
         return fileName;
     }
@@ -147,6 +156,10 @@ public class CategoryServiceImp implements CategoryService{
     @Transactional
     @CacheEvict(value = "categories", key = "#id")
     public void deleteCategory(String id) {
+        // Danh mục mặc định là nơi nhận sản phẩm của các danh mục bị xóa nên không được xóa
+        if (defaultCategoryProvider.isDefault(id)) {
+            throw new AppException(ErrorCode.DEFAULT_CATEGORY_CANNOT_BE_DELETED);
+        }
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
 
@@ -155,29 +168,28 @@ public class CategoryServiceImp implements CategoryService{
             log.warn("User does not have access rights to delete category {}", category.getName());
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
-        // Xóa danh mục và set Các sản phầm thuộc danh mục này sẽ được chuyển sang danh mục Chưa phân loại
-        // Tìm các sản phẩm thuộc danh mục này
-        List<Product> products = productRepository.findAllByCategoryId(id);
-        if (!products.isEmpty()) {
-            // Chuyển các sản phẩm sang danh mục "Chưa phân loại"
-            Category uncategorizedCategory = categoryRepository.findByName("Chưa phân loại")
-                    .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
-
-            products.forEach(product -> product.setCategory(uncategorizedCategory));
-            productRepository.saveAll(products);
-            log.info("Products in category {} have been moved to 'Chưa phân loại'", category.getName());
+        // Các sản phẩm thuộc danh mục này được chuyển sang danh mục "Chưa phân loại" bằng một câu UPDATE
+        String uncategorizedId = defaultCategoryProvider.getId();
+        List<String> movedProductIds = productRepository.reassignCategory(id, uncategorizedId);
+        if (!movedProductIds.isEmpty()) {
+            // Chi tiết sản phẩm trong cache còn tên danh mục cũ: hủy đúng các sản phẩm bị chuyển sau khi commit
+            cacheManager.evictAll("products", movedProductIds);
+            searchResultCache.bump(SearchResultCache.productsOfCategory(uncategorizedId));
+            log.info("{} products in category {} have been moved to '{}'", movedProductIds.size(),
+                    category.getName(), DefaultCategoryProvider.DEFAULT_CATEGORY_NAME);
         }
         // Xóa danh mục
         categoryRepository.delete(category);
+        searchResultCache.bump(SearchResultCache.ALL_CATEGORIES, SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(id));
         log.info("Category {} has been deleted successfully", category.getName());
     }
 
     // Hàm chung để kiểm tra quyền truy cập
     private boolean checkAccessRights(Category category) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserResponse currentUser = userServiceClient.getUserByUsername(username).getResult();
+        AuthenticatedUser currentUser = currentUserResolver.resolve();
 
-        boolean isAdmin = currentUser.getRole().getName().equals("ADMIN");
+        boolean isAdmin = currentUser.isAdmin();
         boolean isOwner = category.getCreatedBy().equals(currentUser.getId());
 
         if (!isAdmin && !isOwner) {
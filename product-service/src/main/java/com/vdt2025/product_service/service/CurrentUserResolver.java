@@ -0,0 +1,63 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.common_dto.dto.response.UserResponse;
+import com.vdt2025.product_service.dto.AuthenticatedUser;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Xác định người dùng hiện tại từ các claim đã được ký trong JWT.
+ * Chỉ gọi sang user-service (qua near cache) khi token cũ chưa có claim userId
+ * hoặc người dùng vừa bị thay đổi vai trò/trạng thái sau thời điểm token được cấp.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class CurrentUserResolver {
+    static final String USER_ID_CLAIM = "userId";
+    static final String ROLE_PREFIX = "ROLE_";
+
+    UserLookupService userLookupService;
+
+    public AuthenticatedUser resolve() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+
+        if (authentication.getPrincipal() instanceof Jwt jwt) {
+            String userId = jwt.getClaimAsString(USER_ID_CLAIM);
+            if (StringUtils.hasText(userId) && !userLookupService.isChangedSince(username, jwt.getIssuedAt())) {
+                return AuthenticatedUser.builder()
+                        .id(userId)
+                        .username(username)
+                        .role(extractRole(authentication))
+                        .build();
+            }
+        }
+
+        log.debug("Resolving user {} through user-service", username);
+        UserResponse user = userLookupService.getUserByUsername(username);
+        return AuthenticatedUser.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .role(user.getRole().getName())
+                .build();
+    }
+
+    private String extractRole(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .findFirst()
+                .orElse(null);
+    }
+}
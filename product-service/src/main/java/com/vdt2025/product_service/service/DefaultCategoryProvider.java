@@ -0,0 +1,50 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.entity.Category;
+import com.vdt2025.product_service.exception.AppException;
+import com.vdt2025.product_service.exception.ErrorCode;
+import com.vdt2025.product_service.repository.CategoryRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Giữ id của danh mục mặc định "Chưa phân loại" (tạo lúc khởi động trong ApplicationInitConfig),
+ * để các thao tác chuyển sản phẩm không phải tìm danh mục theo tên mỗi lần.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class DefaultCategoryProvider {
+    public static final String DEFAULT_CATEGORY_NAME = "Chưa phân loại";
+
+    CategoryRepository categoryRepository;
+
+    @NonFinal
+    volatile String defaultCategoryId;
+
+    // Ghi nhận id sau khi danh mục mặc định được tạo hoặc tìm thấy lúc khởi động
+    public void remember(String categoryId) {
+        defaultCategoryId = categoryId;
+    }
+
+    public String getId() {
+        String id = defaultCategoryId;
+        if (Objects.isNull(id)) {
+            // Chưa qua bước khởi động (ví dụ được gọi sớm): tìm theo tên một lần
+            id = categoryRepository.findByName(DEFAULT_CATEGORY_NAME)
+                    .map(Category::getId)
+                    .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
+            defaultCategoryId = id;
+        }
+        return id;
+    }
+
+    public boolean isDefault(String categoryId) {
+        return getId().equals(categoryId);
+    }
+}
@@ -0,0 +1,313 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.dto.AuthenticatedUser;
+import com.vdt2025.product_service.dto.request.product.ProductBatchUpdateRequest;
+import com.vdt2025.product_service.dto.request.product.ProductCreationRequest;
+import com.vdt2025.product_service.dto.request.product.ProductUpdateRequest;
+import com.vdt2025.product_service.dto.response.BatchItemResult;
+import com.vdt2025.product_service.dto.response.BatchResultResponse;
+import com.vdt2025.product_service.entity.Category;
+import com.vdt2025.product_service.entity.Product;
+import com.vdt2025.product_service.exception.AppException;
+import com.vdt2025.product_service.exception.ErrorCode;
+import com.vdt2025.product_service.mapper.ProductMapper;
+import com.vdt2025.product_service.repository.CategoryRepository;
+import com.vdt2025.product_service.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Nhập và cập nhật sản phẩm hàng loạt.
+ * - Kiểm tra trùng tên, danh mục, sản phẩm bằng truy vấn theo tập (IN) thay vì từng dòng.
+ * - Xác định người gọi một lần cho cả lô.
+ * - Ghi theo từng phần (chunk) trong transaction riêng, Hibernate gom thành lô JDBC (hibernate.jdbc.batch_size).
+ * - Trả về kết quả cho từng phần tử, một phần tử lỗi không làm hỏng cả lô.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class ProductBatchService {
+    static final int CHUNK_SIZE = 500;
+
+    ProductRepository productRepository;
+    CategoryRepository categoryRepository;
+    ProductMapper productMapper;
+    CurrentUserResolver currentUserResolver;
+    SearchResultCache searchResultCache;
+    CacheManager cacheManager;
+    TransactionTemplate transactionTemplate;
+    EntityManager entityManager;
+
+    @NonFinal
+    @Value("${app.product-batch.max-items:10000}")
+    int maxItems;
+
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public BatchResultResponse createProducts(List<ProductCreationRequest> requests) {
+        checkBatchSize(requests);
+        AuthenticatedUser caller = currentUserResolver.resolve();
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+
+        // 1. Kiểm tra dữ liệu từng phần tử và trùng tên trong chính lô
+        Set<String> seenNames = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductCreationRequest request = requests.get(i);
+            if (request == null || isBlank(request.getName()) || isBlank(request.getCategoryId())
+                    || request.getPrice() == null || !isValid(request.getPrice(), request.getQuantity())) {
+                results[i] = failure(i, null, ErrorCode.INVALID_PRODUCT_DATA);
+            } else if (!seenNames.add(request.getName())) {
+                results[i] = failure(i, null, ErrorCode.DUPLICATE_IN_BATCH);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // 2. Kiểm tra tên đã tồn tại và danh mục bằng truy vấn theo tập
+        Set<String> existingNames = findExistingNames(candidates.stream().map(i -> requests.get(i).getName()).toList());
+        Map<String, Category> categories = findCategories(candidates.stream().map(i -> requests.get(i).getCategoryId()).toList());
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i : candidates) {
+            ProductCreationRequest request = requests.get(i);
+            if (existingNames.contains(request.getName())) {
+                results[i] = failure(i, null, ErrorCode.PRODUCT_EXISTED);
+            } else if (!categories.containsKey(request.getCategoryId())) {
+                results[i] = failure(i, null, ErrorCode.CATEGORY_NOT_FOUND);
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        // 3. Ghi theo từng phần
+        Set<String> touchedCategories = new HashSet<>();
+        for (List<Integer> chunk : partition(accepted)) {
+            try {
+                List<Product> saved = transactionTemplate.execute(status -> {
+                    List<Product> products = chunk.stream().map(i -> {
+                        ProductCreationRequest request = requests.get(i);
+                        Product product = productMapper.toProduct(request);
+                        product.setImage_name(null);
+                        product.setCreatedBy(caller.getId());
+                        product.setActive(true);
+                        product.setCategory(categories.get(request.getCategoryId()));
+                        return product;
+                    }).toList();
+                    List<Product> result = productRepository.saveAll(products);
+                    flushAndClear();
+                    return result;
+                });
+                for (int k = 0; k < chunk.size(); k++) {
+                    Product product = saved.get(k);
+                    results[chunk.get(k)] = success(chunk.get(k), product.getId());
+                    touchedCategories.add(product.getCategory().getId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Batch insert chunk failed: {}", e.getMessage());
+                chunk.forEach(i -> results[i] = failure(i, null, errorOf(e)));
+            }
+        }
+
+        bumpSearchGenerations(touchedCategories);
+        BatchResultResponse response = summarize(results);
+        log.info("Batch created {} of {} products by {}", response.getSucceeded(), response.getTotal(), caller.getUsername());
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public BatchResultResponse updateProducts(List<ProductBatchUpdateRequest> requests) {
+        checkBatchSize(requests);
+        AuthenticatedUser caller = currentUserResolver.resolve();
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+
+        // 1. Kiểm tra dữ liệu từng phần tử và trùng id/tên trong chính lô
+        Set<String> seenIds = new HashSet<>();
+        Set<String> seenNames = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ProductBatchUpdateRequest item = requests.get(i);
+            ProductUpdateRequest request = item == null ? null : item.getProduct();
+            if (request == null || isBlank(item.getId()) || !isValid(request.getPrice(), request.getQuantity())
+                    || (request.getName() != null && request.getName().isBlank())) {
+                results[i] = failure(i, item == null ? null : item.getId(), ErrorCode.INVALID_PRODUCT_DATA);
+            } else if (!seenIds.add(item.getId())
+                    || (request.getName() != null && !seenNames.add(request.getName()))) {
+                results[i] = failure(i, item.getId(), ErrorCode.DUPLICATE_IN_BATCH);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // 2. Danh mục được tham chiếu, kiểm tra một lần cho cả lô
+        Map<String, Category> categories = findCategories(candidates.stream()
+                .map(i -> requests.get(i).getProduct().getCategoryId())
+                .filter(Objects::nonNull)
+                .toList());
+
+        // 3. Nạp, kiểm tra và cập nhật theo từng phần trong cùng transaction, dirty checking sinh lô UPDATE
+        Set<String> touchedCategories = new HashSet<>();
+        List<String> updatedIds = new ArrayList<>();
+        for (List<Integer> chunk : partition(candidates)) {
+            Map<Integer, BatchItemResult> chunkResults = new HashMap<>();
+            try {
+                Set<String> chunkCategories = new HashSet<>();
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<String, Product> products = productRepository.findAllById(
+                                    chunk.stream().map(i -> requests.get(i).getId()).toList()).stream()
+                            .collect(Collectors.toMap(Product::getId, Function.identity()));
+                    Set<String> existingNames = findExistingNames(chunk.stream()
+                            .map(i -> requests.get(i).getProduct().getName())
+                            .filter(Objects::nonNull)
+                            .toList());
+
+                    for (int i : chunk) {
+                        ProductBatchUpdateRequest item = requests.get(i);
+                        ProductUpdateRequest request = item.getProduct();
+                        Product product = products.get(item.getId());
+                        if (product == null) {
+                            chunkResults.put(i, failure(i, item.getId(), ErrorCode.PRODUCT_NOT_FOUND));
+                        } else if (!caller.isAdmin() && !Objects.equals(product.getCreatedBy(), caller.getId())) {
+                            chunkResults.put(i, failure(i, item.getId(), ErrorCode.UNAUTHORIZED));
+                        } else if (request.getName() != null && !request.getName().equals(product.getName())
+                                && existingNames.contains(request.getName())) {
+                            chunkResults.put(i, failure(i, item.getId(), ErrorCode.PRODUCT_EXISTED));
+                        } else if (request.getCategoryId() != null && !categories.containsKey(request.getCategoryId())) {
+                            chunkResults.put(i, failure(i, item.getId(), ErrorCode.CATEGORY_NOT_FOUND));
+                        } else {
+                            chunkCategories.add(product.getCategory().getId());
+                            productMapper.updateProduct(product, request);
+                            if (request.getCategoryId() != null) {
+                                product.setCategory(categories.get(request.getCategoryId()));
+                            }
+                            chunkCategories.add(product.getCategory().getId());
+                            chunkResults.put(i, success(i, item.getId()));
+                        }
+                    }
+                    flushAndClear();
+                });
+                touchedCategories.addAll(chunkCategories);
+                chunkResults.forEach((i, result) -> {
+                    results[i] = result;
+                    if (result.isSuccess()) {
+                        updatedIds.add(result.getId());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Batch update chunk failed: {}", e.getMessage());
+                chunk.forEach(i -> results[i] = failure(i, requests.get(i).getId(), errorOf(e)));
+            }
+        }
+
+        // Xóa các sản phẩm đã cập nhật khỏi cache theo id
+        Cache productCache = cacheManager.getCache("products");
+        if (productCache != null) {
+            updatedIds.forEach(productCache::evict);
+        }
+        bumpSearchGenerations(touchedCategories);
+        log.info("Batch updated {} of {} products by {}", updatedIds.size(), requests.size(), caller.getUsername());
+        return summarize(results);
+    }
+
+    private void checkBatchSize(List<?> requests) {
+        if (requests == null || requests.size() > maxItems) {
+            throw new AppException(ErrorCode.BATCH_TOO_LARGE);
+        }
+    }
+
+    private Set<String> findExistingNames(List<String> names) {
+        Set<String> existing = new HashSet<>();
+        partition(names).forEach(chunk -> existing.addAll(productRepository.findExistingNames(chunk)));
+        return existing;
+    }
+
+    private Map<String, Category> findCategories(List<String> ids) {
+        return categoryRepository.findAllById(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+    }
+
+    private void bumpSearchGenerations(Set<String> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return;
+        }
+        List<String> scopes = new ArrayList<>();
+        scopes.add(SearchResultCache.ALL_PRODUCTS);
+        categoryIds.forEach(id -> scopes.add(SearchResultCache.productsOfCategory(id)));
+        searchResultCache.bump(scopes.toArray(String[]::new));
+    }
+
+    // Đẩy lô câu lệnh xuống DB và giải phóng persistence context sau mỗi phần.
+    // Flush qua repository để lỗi ràng buộc được Spring chuyển thành DataIntegrityViolationException
+    private void flushAndClear() {
+        productRepository.flush();
+        entityManager.clear();
+    }
+
+    private static <T> List<List<T>> partition(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            chunks.add(items.subList(from, Math.min(from + CHUNK_SIZE, items.size())));
+        }
+        return chunks;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean isValid(BigDecimal price, int quantity) {
+        return (price == null || price.signum() >= 0) && quantity >= 0;
+    }
+
+    // Lỗi ràng buộc có thể chưa được dịch (ví dụ phát sinh lúc commit), nên xét cả chuỗi nguyên nhân
+    static ErrorCode errorOf(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return ErrorCode.DATA_INTEGRITY_VIOLATION;
+            }
+        }
+        return ErrorCode.UNCATEGORIZED_EXCEPTION;
+    }
+
+    private static BatchItemResult success(int index, String id) {
+        return BatchItemResult.builder().index(index).id(id).success(true).build();
+    }
+
+    private static BatchItemResult failure(int index, String id, ErrorCode errorCode) {
+        return BatchItemResult.builder()
+                .index(index)
+                .id(id)
+                .success(false)
+                .code(errorCode.getCode())
+                .message(errorCode.getMessage())
+                .build();
+    }
+
+    private static BatchResultResponse summarize(BatchItemResult[] results) {
+        List<BatchItemResult> items = Arrays.asList(results);
+        int succeeded = (int) items.stream().filter(BatchItemResult::isSuccess).count();
+        return BatchResultResponse.builder()
+                .total(items.size())
+                .succeeded(succeeded)
+                .failed(items.size() - succeeded)
+                .items(items)
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.exception.AppException;
+import com.vdt2025.product_service.exception.ErrorCode;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mã hóa vị trí keyset (giá trị cột sắp xếp + id của bản ghi cuối) thành token mờ cho client.
+ * Định dạng: base64url("sortBy|direction|value|id").
+ */
+@Component
+public class ProductCursorCodec {
+    public static final String CREATED_AT = "createdAt";
+    public static final String PRICE = "price";
+    static final String ID = "id";
+    static final String SEPARATOR = "|";
+
+    public record Cursor(String sortBy, Sort.Direction direction, ScrollPosition position) {
+    }
+
+    public String encode(String sortBy, Sort.Direction direction, KeysetScrollPosition position) {
+        Object value = position.getKeys().get(sortBy);
+        String rawValue = value instanceof BigDecimal price ? price.toPlainString() : String.valueOf(value);
+        String raw = String.join(SEPARATOR, sortBy, direction.name(), rawValue, String.valueOf(position.getKeys().get(ID)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4) {
+                throw new AppException(ErrorCode.INVALID_CURSOR);
+            }
+            String sortBy = validateSortKey(parts[0]);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortBy, CREATED_AT.equals(sortBy) ? LocalDateTime.parse(parts[2]) : new BigDecimal(parts[2]));
+            keys.put(ID, parts[3]);
+            return new Cursor(sortBy, Sort.Direction.valueOf(parts[1]), ScrollPosition.forward(keys));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public String validateSortKey(String sortBy) {
+        if (!CREATED_AT.equals(sortBy) && !PRICE.equals(sortBy)) {
+            throw new AppException(ErrorCode.INVALID_SORT_KEY);
+        }
+        return sortBy;
+    }
+}
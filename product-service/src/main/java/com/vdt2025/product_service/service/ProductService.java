@@ -3,11 +3,15 @@ package com.vdt2025.product_service.service;
 import com.vdt2025.product_service.dto.request.product.ProductCreationRequest;
 import com.vdt2025.product_service.dto.request.product.ProductFilterRequest;
 import com.vdt2025.product_service.dto.request.product.ProductUpdateRequest;
+import com.vdt2025.product_service.dto.response.CursorPageResponse;
 import com.vdt2025.product_service.dto.response.ProductResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 public interface ProductService {
 
     ProductResponse createProduct(ProductCreationRequest request);
@@ -20,5 +24,10 @@ public interface ProductService {
 
     Page<ProductResponse> searchProducts(ProductFilterRequest filter, Pageable pageable);
 
+    CursorPageResponse<ProductResponse> scrollProducts(ProductFilterRequest filter, String cursor, int size,
+                                                       String sortBy, Sort.Direction direction);
+
+    List<ProductResponse> fullTextSearch(String keyword, int page, int size);
+
     void deleteProduct(String id);
 }
@@ -1,11 +1,11 @@
 package com.vdt2025.product_service.service;
 
-import com.vdt2025.common_dto.dto.response.UserResponse;
 import com.vdt2025.common_dto.service.FileServiceClient;
-import com.vdt2025.common_dto.service.UserServiceClient;
+import com.vdt2025.product_service.dto.AuthenticatedUser;
 import com.vdt2025.product_service.dto.request.product.ProductCreationRequest;
 import com.vdt2025.product_service.dto.request.product.ProductFilterRequest;
 import com.vdt2025.product_service.dto.request.product.ProductUpdateRequest;
+import com.vdt2025.product_service.dto.response.CursorPageResponse;
 import com.vdt2025.product_service.dto.response.ProductResponse;
 import com.vdt2025.product_service.entity.Category;
 import com.vdt2025.product_service.entity.Product;
@@ -21,24 +21,34 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class ProductServiceImp implements ProductService {
+    private static final int MAX_PAGE_SIZE = 100;
 //    private final UserRepository userRepository;
     ProductMapper productMapper;
     ProductRepository productRepository;
     CategoryRepository categoryRepository;
-    UserServiceClient userServiceClient;
+    CurrentUserResolver currentUserResolver;
     FileServiceClient fileServiceClient;
+    ProductCursorCodec productCursorCodec;
+    SearchResultCache searchResultCache;
 //    FileStorageService fileStorageService;
 
     @Override
@@ -53,8 +63,7 @@ public class ProductServiceImp implements ProductService {
         var category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
         // Lấy thông tin người dùng hiện tại từ SecurityContext
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserResponse user = userServiceClient.getUserByUsername(username).getResult();
+        AuthenticatedUser user = currentUserResolver.resolve();
         // Tạo sản phẩm mới
         var product = productMapper.toProduct(request);
         product.setImage_name(null);
@@ -62,12 +71,13 @@ public class ProductServiceImp implements ProductService {
         product.setActive(true);
         product.setCategory(category);
         product = productRepository.save(product);
+        searchResultCache.bump(SearchResultCache.ALL_PRODUCTS, SearchResultCache.productsOfCategory(category.getId()));
         log.info("Product {} created successfully", product.getName());
         return productMapper.toProductResponse(product);
     }
 
     @Override
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = "products", key = "#id", sync = true)
     public ProductResponse getProductById(String id) {
         var product = productRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
@@ -77,9 +87,8 @@ public class ProductServiceImp implements ProductService {
     // Hàm hỗ trợ kiểm tra quyền truy cập
     // Chỉ admin hoặc người tạo sản phẩm mới có quyền truy cập
     private boolean checkAccessRights(Product product) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        UserResponse currentUser = userServiceClient.getUserByUsername(username).getResult();
-        boolean isAdmin = currentUser.getRole().getName().equals("ADMIN");
+        AuthenticatedUser currentUser = currentUserResolver.resolve();
+        boolean isAdmin = currentUser.isAdmin();
         boolean isOwner = product.getCreatedBy().equals(currentUser.getId());
 
         if (!isAdmin && !isOwner) {
@@ -101,6 +110,8 @@ public class ProductServiceImp implements ProductService {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
         productRepository.delete(product);
+        searchResultCache.bump(SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(product.getCategory().getId()));
         log.info("Product {} deleted successfully", product.getName());
     }
 
@@ -115,6 +126,7 @@ public class ProductServiceImp implements ProductService {
             log.warn("User does not have access rights to update product {}", product.getName());
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
+        String oldCategoryId = product.getCategory().getId();
         // Cập nhật thông tin sản phẩm
         productMapper.updateProduct(product, request);
         // Kiểm tra tên danh mục có tồn tại không
@@ -124,17 +136,79 @@ public class ProductServiceImp implements ProductService {
             product.setCategory(category);
         }
         product = productRepository.save(product);
+        searchResultCache.bump(SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(oldCategoryId),
+                SearchResultCache.productsOfCategory(product.getCategory().getId()));
         log.info("Product {} updated successfully", product.getName());
         return productMapper.toProductResponse(product);
     }
 
     @Override
-    @Cacheable(value = "products", key = "#filter.toString() + #pageable.toString()")
     public Page<ProductResponse> searchProducts(ProductFilterRequest filter, Pageable pageable) {
         log.info("Searching products with filter: {}", filter);
+        // Tìm theo danh mục chỉ phụ thuộc generation của danh mục đó, còn lại phụ thuộc toàn bộ sản phẩm
+        String scope = (filter.getCategoryId() != null && !filter.getCategoryId().isBlank())
+                ? SearchResultCache.productsOfCategory(filter.getCategoryId())
+                : SearchResultCache.ALL_PRODUCTS;
         // Tạo truy vấn tìm kiếm với các điều kiện từ filter
-        return productRepository.findAll(ProductSpecification.withFilter(filter),pageable)
-                .map(productMapper::toProductResponse);
+        return searchResultCache.get(SearchResultCache.PRODUCT_SEARCH, scope, filter.toCacheKey(), pageable,
+                // Chiếu thẳng sang DTO trong một truy vấn, danh mục chỉ gồm id và tên
+                () -> productRepository.searchProjected(ProductSpecification.withFilter(filter), pageable));
+    }
+
+    @Override
+    public List<ProductResponse> fullTextSearch(String keyword, int page, int size) {
+        log.info("Full-text searching products with keyword: {}", keyword);
+        String tsQuery = toPrefixTsQuery(keyword);
+        if (tsQuery.isEmpty()) {
+            return List.of();
+        }
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long offset = (long) Math.max(page, 0) * limit;
+        return productRepository.fullTextSearch(tsQuery, limit, offset).stream()
+                .map(productMapper::toProductResponse)
+                .toList();
+    }
+
+    // Chuyển từ khóa người dùng thành tsquery dạng "ao:* & thun:*" để khớp theo tiền tố từng từ
+    // Chỉ giữ chữ và số để không lọt cú pháp tsquery (&, |, !, :) từ đầu vào
+    private String toPrefixTsQuery(String keyword) {
+        if (keyword == null) {
+            return "";
+        }
+        return Arrays.stream(keyword.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isBlank())
+                .map(term -> term + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    @Override
+    public CursorPageResponse<ProductResponse> scrollProducts(ProductFilterRequest filter, String cursor, int size,
+                                                              String sortBy, Sort.Direction direction) {
+        log.info("Scrolling products with filter: {}, cursor: {}", filter, cursor);
+        // Cursor đã chứa khóa sắp xếp của trang trước, ưu tiên dùng để các trang luôn nhất quán
+        ProductCursorCodec.Cursor position = (cursor == null || cursor.isBlank())
+                ? new ProductCursorCodec.Cursor(productCursorCodec.validateSortKey(sortBy), direction, ScrollPosition.keyset())
+                : productCursorCodec.decode(cursor);
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // Sắp xếp theo (khóa, id) để thứ tự là duy nhất, id dùng để phân định các giá trị trùng nhau
+        Sort sort = Sort.by(position.direction(), position.sortBy(), "id");
+
+        // Truy vấn keyset: WHERE (khóa, id) > (giá trị cuối) LIMIT n, không cần OFFSET hay COUNT(*)
+        Window<Product> window = productRepository.findBy(ProductSpecification.withFilter(filter),
+                query -> query.sortBy(sort).limit(limit).scroll(position.position()));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            var last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = productCursorCodec.encode(position.sortBy(), position.direction(), last);
+        }
+        return CursorPageResponse.<ProductResponse>builder()
+                .content(window.getContent().stream().map(productMapper::toProductResponse).toList())
+                .size(window.size())
+                .hasNext(window.hasNext())
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
@@ -158,6 +232,8 @@ public class ProductServiceImp implements ProductService {
         String fileName = fileServiceClient.uploadFile(file).getResult();
         product.setImage_name(fileName);
         productRepository.save(product);
+        searchResultCache.bump(SearchResultCache.ALL_PRODUCTS,
+                SearchResultCache.productsOfCategory(product.getCategory().getId()));
         log.info("Thumbnail for product {} updated successfully", product.getName());
         return fileName;
     }
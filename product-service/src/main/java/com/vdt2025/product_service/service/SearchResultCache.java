@@ -0,0 +1,108 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.dto.response.CachedPage;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả tìm kiếm có phiên bản (generation).
+ * Mỗi khóa tìm kiếm chứa số generation của phạm vi dữ liệu nó phụ thuộc vào:
+ * toàn bộ sản phẩm, sản phẩm của một danh mục, hoặc danh sách danh mục.
+ * Khi ghi dữ liệu chỉ cần tăng generation (INCR), các trang cũ trở nên không truy cập được
+ * ngay lập tức mà không phải quét khóa; chúng tự hết hạn theo TTL của cache.
+ * Mỗi lần tăng generation cũng được phát lên kênh catalog-changed để api-gateway hủy các trang đã cache.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class SearchResultCache {
+    public static final String PRODUCT_SEARCH = "productSearch";
+    public static final String CATEGORY_SEARCH = "categorySearch";
+
+    // Các phạm vi generation
+    public static final String ALL_PRODUCTS = "products";
+    public static final String ALL_CATEGORIES = "categories";
+    static final String CATEGORY_PRODUCTS_PREFIX = "products:category:";
+    static final String GENERATION_KEY_PREFIX = "catalog:generation:";
+    // Kênh Redis pub/sub, nội dung là danh sách phạm vi bị thay đổi cách nhau bởi dấu phẩy
+    public static final String CATALOG_CHANGED_CHANNEL = "catalog-changed";
+
+    CacheManager cacheManager;
+    StringRedisTemplate redisTemplate;
+
+    public static String productsOfCategory(String categoryId) {
+        return CATEGORY_PRODUCTS_PREFIX + categoryId;
+    }
+
+    // Lấy trang kết quả từ cache, nếu chưa có thì truy vấn và lưu lại
+    @SuppressWarnings("unchecked")
+    public <T> Page<T> get(String cacheName, String scope, String filterKey, Pageable pageable,
+                           Supplier<Page<T>> loader) {
+        Cache cache = Objects.requireNonNull(cacheManager.getCache(cacheName));
+        String key = scope + ":g" + generation(scope) + ":" + filterKey
+                + ":p" + pageable.getPageNumber() + ":s" + pageable.getPageSize() + ":" + pageable.getSort();
+
+        CachedPage<T> cached = cache.get(key, CachedPage.class);
+        if (cached != null) {
+            return new PageImpl<>(cached.getContent(), pageable, cached.getTotalElements());
+        }
+        Page<T> page = loader.get();
+        cache.put(key, CachedPage.<T>builder()
+                .content(page.getContent())
+                .totalElements(page.getTotalElements())
+                .build());
+        return page;
+    }
+
+    // Tăng generation cho các phạm vi bị ảnh hưởng bởi thao tác ghi
+    // Nếu đang trong transaction thì đợi commit xong, tránh trang cũ được nạp lại với generation mới
+    public void bump(String... scopes) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(scopes);
+                }
+            });
+            return;
+        }
+        increment(scopes);
+    }
+
+    private void increment(String... scopes) {
+        List<String> changed = Arrays.stream(scopes)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        changed.forEach(scope -> redisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + scope));
+        log.debug("Bumped search cache generations: {}", changed);
+        try {
+            redisTemplate.convertAndSend(CATALOG_CHANGED_CHANNEL, String.join(",", changed));
+        } catch (RuntimeException e) {
+            // Trang cache ở gateway sẽ tự hết hạn theo max-age
+            log.warn("Could not publish catalog change for {}: {}", changed, e.getMessage());
+        }
+    }
+
+    private long generation(String scope) {
+        String value = redisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + scope);
+        return value == null ? 0 : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,55 @@
+package com.vdt2025.product_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vdt2025.common_dto.dto.response.UserResponse;
+import com.vdt2025.common_dto.service.UserServiceClient;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserLookupService {
+    Cache<String, UserResponse> userLookupCache;
+    UserServiceClient userServiceClient;
+    // Thời điểm thay đổi gần nhất của từng người dùng, chỉ cần giữ trong thời gian sống của một access token
+    Cache<String, Instant> lastChangedAt;
+
+    public UserLookupService(Cache<String, UserResponse> userLookupCache,
+                             UserServiceClient userServiceClient,
+                             @Value("${jwt.valid-duration}") long validDuration) {
+        this.userLookupCache = userLookupCache;
+        this.userServiceClient = userServiceClient;
+        this.lastChangedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(validDuration))
+                .build();
+    }
+
+    // Lấy thông tin người dùng theo username, ưu tiên cache cục bộ trước khi gọi sang user-service
+    public UserResponse getUserByUsername(String username) {
+        return userLookupCache.get(username, key -> {
+            log.debug("User cache miss for {}, calling user-service", key);
+            return userServiceClient.getUserByUsername(key).getResult();
+        });
+    }
+
+    // Xóa người dùng khỏi cache khi user-service báo có thay đổi
+    public void evict(String username) {
+        lastChangedAt.put(username, Instant.now());
+        userLookupCache.invalidate(username);
+    }
+
+    // Kiểm tra người dùng có bị thay đổi sau thời điểm token được cấp không
+    public boolean isChangedSince(String username, Instant issuedAt) {
+        Instant changedAt = lastChangedAt.getIfPresent(username);
+        return Objects.nonNull(changedAt) && (Objects.isNull(issuedAt) || !changedAt.isBefore(issuedAt));
+    }
+}
@@ -0,0 +1,111 @@
+package com.vdt2025.product_service.benchmark;
+
+import com.vdt2025.product_service.configuration.RedisCacheSerializers;
+import com.vdt2025.product_service.dto.response.CachedPage;
+import com.vdt2025.product_service.dto.response.CategoryResponse;
+import com.vdt2025.product_service.dto.response.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * So sánh serializer JSON hiện tại với Smile cho các giá trị cache điển hình.
+ * Chạy: mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=com.vdt2025.product_service.benchmark.CacheSerializerBenchmark
+ * main() chạy benchmark ngay trong JVM của exec:java (forks = 0) vì JVM fork ra
+ * không thấy classpath test của exec:java.
+ * Kích thước đã mã hóa (byte) được ghi log ở bước setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheSerializerBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSerializerBenchmark.class);
+
+    @Param({"json", "binary"})
+    String format;
+
+    RedisSerializer<Object> serializer;
+    ProductResponse product;
+    CachedPage<ProductResponse> page;
+    byte[] encodedProduct;
+    byte[] encodedPage;
+
+    @Setup
+    public void setup() {
+        serializer = "json".equals(format) ? RedisCacheSerializers.json() : RedisCacheSerializers.binary();
+        CategoryResponse category = CategoryResponse.builder()
+                .id(UUID.randomUUID().toString())
+                .name("Điện thoại")
+                .description("Điện thoại di động và phụ kiện")
+                .createdBy(UUID.randomUUID().toString())
+                .build();
+        product = product(0, category);
+        page = CachedPage.<ProductResponse>builder()
+                .content(IntStream.range(0, 20).mapToObj(i -> product(i, category)).toList())
+                .totalElements(1_000_000)
+                .build();
+        encodedProduct = serializer.serialize(product);
+        encodedPage = serializer.serialize(page);
+        log.info("[{}] product: {} bytes, page of 20: {} bytes",
+                format, encodedProduct.length, encodedPage.length);
+    }
+
+    private static ProductResponse product(int i, CategoryResponse category) {
+        return ProductResponse.builder()
+                .id(UUID.randomUUID().toString())
+                .name("Sản phẩm " + i)
+                .description("Mô tả chi tiết cho sản phẩm số " + i)
+                .image_name(UUID.randomUUID() + "_thumbnail.png")
+                .price(BigDecimal.valueOf(199_000 + i * 1_000L))
+                .quantity(100 + i)
+                .category(category)
+                .createdBy(UUID.randomUUID().toString())
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .active(true)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] encodeProduct() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object decodeProduct() {
+        return serializer.deserialize(encodedProduct);
+    }
+
+    @Benchmark
+    public byte[] encodePage() {
+        return serializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object decodePage() {
+        return serializer.deserialize(encodedPage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .forks(0)
+                .build()).run();
+    }
+}
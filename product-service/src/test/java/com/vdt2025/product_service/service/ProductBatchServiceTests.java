@@ -0,0 +1,170 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.dto.AuthenticatedUser;
+import com.vdt2025.product_service.dto.request.product.ProductCreationRequest;
+import com.vdt2025.product_service.dto.response.BatchItemResult;
+import com.vdt2025.product_service.dto.response.BatchResultResponse;
+import com.vdt2025.product_service.entity.Category;
+import com.vdt2025.product_service.entity.Product;
+import com.vdt2025.product_service.exception.ErrorCode;
+import com.vdt2025.product_service.mapper.ProductMapper;
+import com.vdt2025.product_service.repository.CategoryRepository;
+import com.vdt2025.product_service.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBatchServiceTests {
+
+    @Mock
+    ProductRepository productRepository;
+    @Mock
+    CategoryRepository categoryRepository;
+    @Mock
+    ProductMapper productMapper;
+    @Mock
+    CurrentUserResolver currentUserResolver;
+    @Mock
+    SearchResultCache searchResultCache;
+    @Mock
+    CacheManager cacheManager;
+    @Mock
+    TransactionTemplate transactionTemplate;
+    @Mock
+    EntityManager entityManager;
+
+    ProductBatchService productBatchService;
+
+    private final Category phones = Category.builder().id("phones").name("Phones").build();
+
+    @BeforeEach
+    void setUp() {
+        productBatchService = new ProductBatchService(productRepository, categoryRepository, productMapper,
+                currentUserResolver, searchResultCache, cacheManager, transactionTemplate, entityManager);
+        ReflectionTestUtils.setField(productBatchService, "maxItems", 100);
+        lenient().when(currentUserResolver.resolve())
+                .thenReturn(AuthenticatedUser.builder().id("u-1").username("manager").role("MANAGER").build());
+    }
+
+    @Test
+    void createReportsResultForEveryItemOfMixedBatch() {
+        List<ProductCreationRequest> requests = List.of(
+                request("Phone A", "phones", "10"),
+                request("Phone B", "phones", null),
+                request("Phone A", "phones", "12"),
+                request("Phone C", "phones", "15"),
+                request("Phone D", "tablets", "20"),
+                request("Phone E", "phones", "25"));
+        when(productRepository.findExistingNames(anyCollection())).thenReturn(Set.of("Phone C"));
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(phones));
+        stubInsert();
+
+        BatchResultResponse response = productBatchService.createProducts(requests);
+
+        assertThat(response.getTotal()).isEqualTo(6);
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(4);
+        List<BatchItemResult> items = response.getItems();
+        assertThat(items).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertSuccess(items.get(0), "id-Phone A");
+        assertFailure(items.get(1), ErrorCode.INVALID_PRODUCT_DATA);
+        assertFailure(items.get(2), ErrorCode.DUPLICATE_IN_BATCH);
+        assertFailure(items.get(3), ErrorCode.PRODUCT_EXISTED);
+        assertFailure(items.get(4), ErrorCode.CATEGORY_NOT_FOUND);
+        assertSuccess(items.get(5), "id-Phone E");
+        verify(searchResultCache).bump(SearchResultCache.ALL_PRODUCTS, SearchResultCache.productsOfCategory("phones"));
+    }
+
+    @Test
+    void createReportsConstraintFailureOfChunkAsDataIntegrityViolation() {
+        List<ProductCreationRequest> requests = List.of(
+                request("Phone A", "phones", "10"),
+                request("Phone B", "phones", "12"));
+        when(productRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        when(categoryRepository.findAllById(any())).thenReturn(List.of(phones));
+        stubInsert();
+        // Tên bị tạo song song giữa lúc kiểm tra và lúc ghi
+        doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"))
+                .when(productRepository).flush();
+
+        BatchResultResponse response = productBatchService.createProducts(requests);
+
+        assertThat(response.getSucceeded()).isZero();
+        response.getItems().forEach(item -> assertFailure(item, ErrorCode.DATA_INTEGRITY_VIOLATION));
+    }
+
+    @Test
+    void errorOfRecognizesUntranslatedConstraintViolation() {
+        PersistenceException untranslated = new PersistenceException(new ConstraintViolationException(
+                "could not execute statement", new SQLException("duplicate key", "23505"), "product_name_key"));
+
+        assertThat(ProductBatchService.errorOf(untranslated)).isEqualTo(ErrorCode.DATA_INTEGRITY_VIOLATION);
+        assertThat(ProductBatchService.errorOf(new IllegalStateException("boom")))
+                .isEqualTo(ErrorCode.UNCATEGORIZED_EXCEPTION);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubInsert() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        when(productMapper.toProduct(any(ProductCreationRequest.class))).thenAnswer(invocation -> {
+            ProductCreationRequest request = invocation.getArgument(0);
+            Product product = new Product();
+            product.setName(request.getName());
+            product.setPrice(request.getPrice());
+            product.setQuantity(request.getQuantity());
+            return product;
+        });
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            products.forEach(product -> product.setId("id-" + product.getName()));
+            return products;
+        });
+    }
+
+    private static ProductCreationRequest request(String name, String categoryId, String price) {
+        return ProductCreationRequest.builder()
+                .name(name)
+                .categoryId(categoryId)
+                .price(price == null ? null : new BigDecimal(price))
+                .quantity(5)
+                .build();
+    }
+
+    private static void assertSuccess(BatchItemResult item, String id) {
+        assertThat(item.isSuccess()).isTrue();
+        assertThat(item.getId()).isEqualTo(id);
+    }
+
+    private static void assertFailure(BatchItemResult item, ErrorCode errorCode) {
+        assertThat(item.isSuccess()).isFalse();
+        assertThat(item.getCode()).isEqualTo(errorCode.getCode());
+    }
+}
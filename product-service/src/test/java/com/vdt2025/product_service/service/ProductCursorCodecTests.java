@@ -0,0 +1,111 @@
+package com.vdt2025.product_service.service;
+
+import com.vdt2025.product_service.exception.AppException;
+import com.vdt2025.product_service.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorCodecTests {
+
+    private final ProductCursorCodec codec = new ProductCursorCodec();
+
+    @Test
+    void createdAtCursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 7, 1, 10, 15, 30, 123_000_000);
+        String cursor = codec.encode(ProductCursorCodec.CREATED_AT, Sort.Direction.DESC,
+                position(ProductCursorCodec.CREATED_AT, createdAt, "p-1"));
+
+        ProductCursorCodec.Cursor decoded = codec.decode(cursor);
+
+        assertThat(decoded.sortBy()).isEqualTo(ProductCursorCodec.CREATED_AT);
+        assertThat(decoded.direction()).isEqualTo(Sort.Direction.DESC);
+        assertThat(((KeysetScrollPosition) decoded.position()).getKeys())
+                .containsEntry(ProductCursorCodec.CREATED_AT, createdAt)
+                .containsEntry(ProductCursorCodec.ID, "p-1");
+    }
+
+    @Test
+    void priceCursorRoundTripsWithoutScientificNotation() {
+        BigDecimal price = new BigDecimal("1E+3");
+        String cursor = codec.encode(ProductCursorCodec.PRICE, Sort.Direction.ASC,
+                position(ProductCursorCodec.PRICE, price, "p-2"));
+
+        ProductCursorCodec.Cursor decoded = codec.decode(cursor);
+
+        assertThat(decoded.direction()).isEqualTo(Sort.Direction.ASC);
+        Object decodedPrice = ((KeysetScrollPosition) decoded.position()).getKeys().get(ProductCursorCodec.PRICE);
+        assertThat((BigDecimal) decodedPrice).isEqualByComparingTo(price);
+        assertThat(raw(cursor)).isEqualTo("price|ASC|1000|p-2");
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = codec.encode(ProductCursorCodec.PRICE, Sort.Direction.ASC,
+                position(ProductCursorCodec.PRICE, new BigDecimal("99.99"), "??>>~~"));
+
+        assertThat(cursor).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertInvalidCursor("not a cursor!");
+    }
+
+    @Test
+    void rejectsCursorWithMissingParts() {
+        assertInvalidCursor(encodeRaw("price|ASC|10"));
+    }
+
+    @Test
+    void rejectsCursorWithTamperedDirection() {
+        assertInvalidCursor(encodeRaw("price|SIDEWAYS|10|p-1"));
+    }
+
+    @Test
+    void rejectsCursorWithTamperedValue() {
+        assertInvalidCursor(encodeRaw("price|ASC|ten|p-1"));
+        assertInvalidCursor(encodeRaw("createdAt|DESC|yesterday|p-1"));
+    }
+
+    @Test
+    void rejectsCursorWithUnsupportedSortKey() {
+        assertThatThrownBy(() -> codec.decode(encodeRaw("name|ASC|abc|p-1")))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_SORT_KEY);
+    }
+
+    private void assertInvalidCursor(String cursor) {
+        assertThatThrownBy(() -> codec.decode(cursor))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.INVALID_CURSOR);
+    }
+
+    private static KeysetScrollPosition position(String sortBy, Object value, String id) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortBy, value);
+        keys.put(ProductCursorCodec.ID, id);
+        return ScrollPosition.forward(keys);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String raw(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
@@ -1,17 +1,16 @@
 package com.vdt2025.user_service.configuration;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableCaching
@@ -22,26 +21,24 @@ public class CacheConfiguration {
         return new SecurityEvaluationContextExtension();
     }
 
+    // Các cache trong app.cache.binary-caches lưu giá trị bằng Smile thay cho JSON
     @Bean
-    public RedisCacheConfiguration redisCacheConfiguration() {
-        // 1. Tạo một ObjectMapper tùy chỉnh
-        ObjectMapper objectMapper = new ObjectMapper()
-                // 2. Đăng ký module để xử lý LocalDateTime, ZonedDateTime, v.v.
-                .registerModule(new JavaTimeModule());
-
-        // 2. Lưu thông tin kiểu dữ liệu vào JSON để deserialization chính xác
-        objectMapper.activateDefaultTyping(
-                BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
-                ObjectMapper.DefaultTyping.NON_FINAL
-        );
-
-        // 3. Tạo serializer với ObjectMapper đã được cấu hình
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    public RedisCacheManagerBuilderCustomizer cacheCustomizer(
+            RedisCacheConfiguration redisCacheConfiguration,
+            @Value("${app.cache.binary-caches:}") List<String> binaryCaches) {
+        return builder -> {
+            var binaryValues = RedisSerializationContext.SerializationPair.fromSerializer(RedisCacheSerializers.binary());
+            binaryCaches.forEach(cacheName -> builder.withCacheConfiguration(cacheName,
+                    redisCacheConfiguration.serializeValuesWith(binaryValues)));
+        };
+    }
 
-        // 4. Sử dụng serializer này cho cấu hình cache
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration() {
+        // Mặc định lưu giá trị dạng JSON kèm thông tin kiểu dữ liệu
         return RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues()
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(RedisCacheSerializers.json()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+package com.vdt2025.user_service.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Tạo chỉ mục trigram cho các trường tìm kiếm của người dùng.
+ * UserSpecification lọc bằng lower(x) LIKE '%...%', chỉ mục B-tree thông thường không dùng được,
+ * còn chỉ mục GIN trigram thì Postgres dùng trực tiếp cho các biểu thức này.
+ */
+@Configuration
+@Slf4j
+public class SearchIndexConfig {
+    static final List<String> STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING GIN (lower(username) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm ON users USING GIN (lower(first_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm ON users USING GIN (lower(last_name) gin_trgm_ops)"
+    );
+
+    @Bean
+    ApplicationRunner searchIndexInitializer(JdbcTemplate jdbcTemplate) {
+        return args -> STATEMENTS.forEach(statement -> {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                // Không chặn khởi động nếu thiếu quyền tạo extension, chỉ mất chỉ mục tăng tốc
+                log.warn("Could not apply search index statement [{}]: {}", statement, e.getMessage());
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.vdt2025.user_service.controller;
 
 import com.vdt2025.user_service.dto.ApiResponse;
+import com.vdt2025.user_service.dto.response.UserImportResponse;
 import com.vdt2025.user_service.service.ExcelService;
 import com.vdt2025.user_service.service.ExcelServiceImp;
 import jakarta.servlet.http.HttpServletResponse;
@@ -20,24 +21,21 @@ public class ExcelController {
     ExcelServiceImp excelService;
 
     @PostMapping("/import")
-    public ApiResponse<String> importExcel(@RequestParam("file") MultipartFile file) {
+    public ApiResponse<UserImportResponse> importExcel(@RequestParam("file") MultipartFile file) {
         log.info("Starting import Excel file");
-        String result = excelService.importUsersFromExcel(file);
-        log.info("Excel file imported successfully: {}", result);
-        return ApiResponse.<String>builder()
+        UserImportResponse result = excelService.importUsersFromExcel(file);
+        log.info("Excel file imported: {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return ApiResponse.<UserImportResponse>builder()
                 .result(result)
-                .message("Excel file imported successfully")
+                .message("Excel file imported: " + result.getSucceeded() + " of " + result.getTotal() + " users created")
                 .build();
     }
 
+    // File Excel được ghi thẳng vào response, không bọc trong ApiResponse
     @GetMapping("/export")
-    public ApiResponse<String> exportExcel(HttpServletResponse response) {
+    public void exportExcel(HttpServletResponse response) {
         log.info("Starting export to Excel file");
         String result = excelService.exportUsersToExcel(response);
         log.info("Excel file exported successfully: {}", result);
-        return ApiResponse.<String>builder()
-                .result(result)
-                .message("Excel file exported successfully")
-                .build();
     }
 }
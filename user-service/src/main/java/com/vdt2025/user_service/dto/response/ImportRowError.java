@@ -0,0 +1,18 @@
+package com.vdt2025.user_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportRowError {
+    // Số dòng trong sheet (tính từ 1 như Excel hiển thị)
+    int row;
+    String username;
+    // Mã lỗi theo ErrorCode
+    int code;
+    String message;
+}
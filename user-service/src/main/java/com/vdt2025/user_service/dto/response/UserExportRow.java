@@ -0,0 +1,27 @@
+package com.vdt2025.user_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Một dòng xuất Excel, đọc bằng projection (không phải entity) nên không tích lũy trong persistence context
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserExportRow {
+    String id;
+    String username;
+    String firstName;
+    String lastName;
+    LocalDate dob;
+    String phone;
+    String email;
+    String avatarName;
+    boolean enabled;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    String roleName;
+}
@@ -0,0 +1,19 @@
+package com.vdt2025.user_service.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserImportResponse {
+    int total;
+    int succeeded;
+    int failed;
+    // Chi tiết các dòng lỗi, giới hạn bởi app.user-import.max-reported-errors
+    List<ImportRowError> errors;
+}
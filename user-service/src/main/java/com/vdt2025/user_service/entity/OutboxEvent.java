@@ -0,0 +1,36 @@
+package com.vdt2025.user_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Sự kiện chờ gửi Kafka, được ghi trong cùng transaction với thay đổi dữ liệu và xóa sau khi đã gửi
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_event_created_at", columnList = "createdAt"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    String id;
+
+    @Column(nullable = false)
+    String topic;
+    String messageKey;
+
+    // Tên lớp của payload, để gửi lại đúng kiểu (header __TypeId__ của JsonSerializer)
+    @Column(nullable = false)
+    String payloadType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    String payload;
+
+    @Column(nullable = false)
+    LocalDateTime createdAt;
+}
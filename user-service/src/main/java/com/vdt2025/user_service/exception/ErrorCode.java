@@ -24,6 +24,9 @@ public enum ErrorCode {
     USER_ALREADY_ENABLED(1211, "User is already enabled", HttpStatus.BAD_REQUEST),
     USER_ALREADY_DISABLED(1212, "User is already disabled", HttpStatus.BAD_REQUEST),
     ADMIN_CANNOT_DISABLE_SELF(1213, "Admin cannot disable themselves", HttpStatus.BAD_REQUEST),
+    EMAIL_EXISTED(1214, "Email already exists", HttpStatus.CONFLICT),
+    PHONE_EXISTED(1215, "Phone number already exists", HttpStatus.CONFLICT),
+    DUPLICATE_IN_IMPORT(1216, "Duplicate username, email or phone in the same file", HttpStatus.BAD_REQUEST),
     // Lỗi File (13xx)
     FILE_CANNOT_STORED(1301, "File cannot be stored", HttpStatus.INTERNAL_SERVER_ERROR),
     FILE_NOT_FOUND(1302, "File cannot be found", HttpStatus.NOT_FOUND),
@@ -2,8 +2,21 @@ package com.vdt2025.user_service.repository;
 
 import com.vdt2025.user_service.entity.InvalidatedToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+
 @Repository
 public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+    // Lấy các token đã thu hồi còn có thể được dùng lại (chưa hết thời gian làm mới)
+    List<InvalidatedToken> findByExpiryDateAfter(Date cutoff);
+
+    // Xóa hàng loạt các token đã hết hạn, không cần tải entity lên bộ nhớ
+    @Modifying
+    @Query("DELETE FROM InvalidatedToken t WHERE t.expiryDate < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") Date cutoff);
 }
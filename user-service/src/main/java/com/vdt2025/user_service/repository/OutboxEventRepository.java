@@ -0,0 +1,17 @@
+package com.vdt2025.user_service.repository;
+
+import com.vdt2025.user_service.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String> {
+    // Khóa một lô sự kiện cũ nhất, bỏ qua các dòng instance khác đang gửi để nhiều instance chạy song song
+    @Query(value = "SELECT * FROM outbox_event ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
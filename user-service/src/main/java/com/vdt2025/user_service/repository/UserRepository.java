@@ -1,10 +1,16 @@
 package com.vdt2025.user_service.repository;
 
+import com.vdt2025.user_service.dto.response.UserExportRow;
 import com.vdt2025.user_service.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -19,4 +25,21 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
     boolean existsByUsername(String username);
 
     boolean existsByPhone(String phone);
+
+    // Kiểm tra trùng theo tập khi nhập hàng loạt, một truy vấn cho cả phần thay vì từng dòng
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.phone FROM User u WHERE u.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
+    // Đọc người dùng theo keyset trên khóa chính (id > afterId), mỗi lần một trang cố định để xuất file
+    @Query("SELECT new com.vdt2025.user_service.dto.response.UserExportRow(" +
+            "u.id, u.username, u.firstName, u.lastName, u.dob, u.phone, u.email, u.avatarName, " +
+            "u.enabled, u.createdAt, u.updatedAt, u.role.name) " +
+            "FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<UserExportRow> findExportChunk(@Param("afterId") String afterId, Pageable pageable);
 }
@@ -31,6 +31,7 @@ public class AdminServiceImp implements AdminService{
     RoleRepository roleRepository;
     UserMapper userMapper;
     PasswordEncoder passwordEncoder;
+    UserChangePublisher userChangePublisher;
 
     // Lấy danh sách người dùng
     @Override
@@ -73,6 +74,7 @@ public class AdminServiceImp implements AdminService{
 
         // Lưu người dùng đã cập nhật
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
 
         return userMapper.toUserResponse(user);
     }
@@ -89,6 +91,7 @@ public class AdminServiceImp implements AdminService{
                 .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_FOUND));
         user.setRole(role);
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
 
         return userMapper.toUserResponse(user);
     }
@@ -107,6 +110,7 @@ public class AdminServiceImp implements AdminService{
 
         user.setEnabled(true);
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
 
         return "User enabled successfully";
     }
@@ -128,6 +132,7 @@ public class AdminServiceImp implements AdminService{
         }
         user.setEnabled(false);
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
 
         return "User disabled successfully";
     }
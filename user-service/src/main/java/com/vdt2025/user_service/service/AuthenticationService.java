@@ -11,11 +11,9 @@ import com.vdt2025.user_service.dto.request.auth.LogoutRequest;
 import com.vdt2025.user_service.dto.request.auth.RefreshRequest;
 import com.vdt2025.user_service.dto.response.AuthenticationResponse;
 import com.vdt2025.user_service.dto.response.IntrospectResponse;
-import com.vdt2025.user_service.entity.InvalidatedToken;
 import com.vdt2025.user_service.entity.User;
 import com.vdt2025.user_service.exception.AppException;
 import com.vdt2025.user_service.exception.ErrorCode;
-import com.vdt2025.user_service.repository.InvalidatedTokenRepository;
 import com.vdt2025.user_service.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -40,7 +38,7 @@ import java.util.UUID;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class AuthenticationService {
     final UserRepository userRepository;
-    final InvalidatedTokenRepository invalidatedTokenRepository;
+    final TokenRevocationIndex tokenRevocationIndex;
 
     @NonFinal
     @Value("${jwt.signerKey}")
@@ -93,7 +91,7 @@ public class AuthenticationService {
         if (!verified || expiryTime.before(new Date()))
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         // Kiểm tra xem token có bị thu hồi không
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
+        if (tokenRevocationIndex.isRevoked(signedJWT.getJWTClaimsSet().getJWTID()))
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         return signedJWT;
     }
@@ -138,6 +136,8 @@ public class AuthenticationService {
                 ))
                 .jwtID(UUID.randomUUID().toString())
                 .claim("scope", buildScope(user))
+                // Các service khác dùng userId để kiểm tra quyền sở hữu mà không cần gọi lại user-service
+                .claim("userId", user.getId())
                 .build();
         Payload payload = new Payload(jwtClaimsSet.toJSONObject());
         JWSObject jwsObject = new JWSObject(header, payload);
@@ -167,12 +167,8 @@ public class AuthenticationService {
             // Lấy ra jwtId từ token và ngày hết hạn
             String jit = signToken.getJWTClaimsSet().getJWTID();
             Date expiryDate = signToken.getJWTClaimsSet().getExpirationTime();
-            // Lưu vào cơ sở dữ liệu
-            InvalidatedToken invalidatedToken = InvalidatedToken.builder()
-                    .id(jit)
-                    .expiryDate(expiryDate)
-                    .build();
-            invalidatedTokenRepository.save(invalidatedToken);
+            // Lưu vào cơ sở dữ liệu và chỉ mục thu hồi trong bộ nhớ
+            tokenRevocationIndex.revoke(jit, expiryDate);
         } catch (AppException e) {
             // Nếu token không hợp lệ, không cần làm gì cả
             log.warn("Token is not valid for logout: {}", request.getToken());
@@ -187,11 +183,7 @@ public class AuthenticationService {
         var jit = signJWT.getJWTClaimsSet().getJWTID();
         var expiryDate = signJWT.getJWTClaimsSet().getExpirationTime();
         // Lưu jwt cũ vào cơ sở dữ liệu để thu hồi sau này
-        InvalidatedToken invalidatedToken = InvalidatedToken.builder()
-                .id(jit)
-                .expiryDate(expiryDate)
-                .build();
-        invalidatedTokenRepository.save(invalidatedToken);
+        tokenRevocationIndex.revoke(jit, expiryDate);
         // Tạo token mới
         var username = signJWT.getJWTClaimsSet().getSubject();
         var user = userRepository.findByUsername(username)
@@ -1,11 +1,12 @@
 package com.vdt2025.user_service.service;
 
+import com.vdt2025.user_service.dto.response.UserImportResponse;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface ExcelService {
 
-    String importUsersFromExcel(MultipartFile file);
+    UserImportResponse importUsersFromExcel(MultipartFile file);
 
     String exportUsersToExcel(HttpServletResponse response);
 
@@ -1,26 +1,28 @@
 package com.vdt2025.user_service.service;
 
-import com.vdt2025.user_service.dto.request.user.UserCreationRequest;
-import com.vdt2025.user_service.dto.response.UserResponse;
+import com.vdt2025.user_service.dto.response.UserExportRow;
+import com.vdt2025.user_service.dto.response.UserImportResponse;
 import com.vdt2025.user_service.exception.AppException;
 import com.vdt2025.user_service.exception.ErrorCode;
+import com.vdt2025.user_service.repository.UserRepository;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.time.ZoneId;
-import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
 
 @Service
@@ -28,47 +30,38 @@ import java.util.List;
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ExcelServiceImp implements ExcelService{
-    PasswordEncoder encoder;
-    UserServiceImp userService;
-    AdminServiceImp adminService;
+    UserImportService userImportService;
+    UserRepository userRepository;
+
+    // Số dòng SXSSF giữ trong bộ nhớ, các dòng cũ hơn được ghi ra file tạm
+    static final int EXPORT_ROW_WINDOW = 100;
+
+    @NonFinal
+    @Value("${app.excel.export-chunk-size:1000}")
+    int exportChunkSize;
+
+    // Đọc bằng SAX, băm mật khẩu song song và ghi theo lô; trả về báo cáo lỗi theo từng dòng
     @Override
     @PreAuthorize("hasRole('ADMIN')")
-    public String importUsersFromExcel(MultipartFile file) {
+    public UserImportResponse importUsersFromExcel(MultipartFile file) {
         log.info("Importing users from Excel file: {}", file.getOriginalFilename());
-        try (InputStream inputStream = file.getInputStream()){
-            XSSFWorkbook workbook = new XSSFWorkbook(inputStream);
-            XSSFSheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-            if (rowIterator.hasNext()) {
-                rowIterator.next(); // Skip header row
-            }
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                UserCreationRequest request = new UserCreationRequest();
-                request.setUsername(row.getCell(0).getStringCellValue());
-                request.setPassword(encoder.encode(row.getCell(1).getStringCellValue()));
-                request.setFirstName(row.getCell(2).getStringCellValue());
-                request.setLastName(row.getCell(3).getStringCellValue());
-                Date birthDate = row.getCell(4).getDateCellValue();
-                if (birthDate != null) {
-                    request.setDob(birthDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
-                }
-                request.setEmail(row.getCell(5).getStringCellValue());
-                request.setPhone(row.getCell(6).getStringCellValue());
-                userService.createUser(request);
-            }
-        } catch (Exception e) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return userImportService.importUsers(inputStream);
+        } catch (IOException e) {
             log.error("Error importing users from Excel file: {}", file.getOriginalFilename(), e);
             throw new AppException(ErrorCode.EXCEL_IMPORT_ERROR);
         }
-        return "Users imported successfully from " + file.getOriginalFilename();
     }
 
+    // Xuất theo luồng: đọc từng trang keyset, SXSSF chỉ giữ một cửa sổ dòng trong bộ nhớ (phần còn lại ghi ra file tạm)
     @Override
+    @PreAuthorize("hasRole('ADMIN')")
     public String exportUsersToExcel(HttpServletResponse response) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            List<UserResponse> users = adminService.getUsers();
-            XSSFSheet sheet = workbook.createSheet("Users");
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXPORT_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        long exported = 0;
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Users");
 
             // Create header row
             Row headerRow = sheet.createRow(0);
@@ -78,32 +71,44 @@ public class ExcelServiceImp implements ExcelService{
             }
             // Populate data rows
             int rowNum = 1;
-            for (UserResponse user : users) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(user.getId());
-                row.createCell(1).setCellValue(user.getUsername());
-                row.createCell(2).setCellValue(user.getFirstName());
-                row.createCell(3).setCellValue(user.getLastName());
-                if (user.getDob() != null) {
-                    row.createCell(4).setCellValue(user.getDob().toString());
-                } else {
-                    row.createCell(4).setCellValue("");
+            String afterId = "";
+            Pageable chunk = PageRequest.of(0, exportChunkSize);
+            List<UserExportRow> users;
+            do {
+                users = userRepository.findExportChunk(afterId, chunk);
+                for (UserExportRow user : users) {
+                    Row row = sheet.createRow(rowNum++);
+                    row.createCell(0).setCellValue(user.getId());
+                    row.createCell(1).setCellValue(user.getUsername());
+                    row.createCell(2).setCellValue(user.getFirstName());
+                    row.createCell(3).setCellValue(user.getLastName());
+                    row.createCell(4).setCellValue(user.getDob() != null ? user.getDob().toString() : "");
+                    row.createCell(5).setCellValue(user.getPhone());
+                    row.createCell(6).setCellValue(user.getEmail());
+                    row.createCell(7).setCellValue(user.getAvatarName() != null ? user.getAvatarName() : "");
+                    row.createCell(8).setCellValue(user.isEnabled() ? "Yes" : "No");
+                    row.createCell(9).setCellValue(user.getCreatedAt().toString());
+                    row.createCell(10).setCellValue(user.getUpdatedAt().toString());
+                    row.createCell(11).setCellValue(user.getRoleName());
                 }
-                row.createCell(5).setCellValue(user.getPhone());
-                row.createCell(6).setCellValue(user.getEmail());
-                row.createCell(7).setCellValue(user.getAvatarName() != null ? user.getAvatarName() : "");
-                row.createCell(8).setCellValue(user.isEnabled() ? "Yes" : "No");
-                row.createCell(9).setCellValue(user.getCreatedAt().toString());
-                row.createCell(10).setCellValue(user.getUpdatedAt().toString());
-                row.createCell(11).setCellValue(user.getRole().getName());
-            }
-            response.setContentType("application/octet-stream");
+                if (!users.isEmpty()) {
+                    afterId = users.get(users.size() - 1).getId();
+                    exported += users.size();
+                }
+            } while (users.size() == exportChunkSize);
+
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setHeader("Content-Disposition", "attachment; filename=users.xlsx");
             workbook.write(response.getOutputStream());
+            response.flushBuffer();
         } catch (Exception e) {
             log.error("Error exporting users to Excel", e);
             throw new AppException(ErrorCode.EXCEL_EXPORT_ERROR);
+        } finally {
+            // Xóa các file tạm của SXSSF
+            workbook.dispose();
         }
-        return "Users exported successfully to Excel file";
+        log.info("Exported {} users to Excel", exported);
+        return "Exported " + exported + " users to Excel file";
     }
 }
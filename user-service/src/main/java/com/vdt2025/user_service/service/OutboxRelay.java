@@ -0,0 +1,93 @@
+package com.vdt2025.user_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vdt2025.user_service.entity.OutboxEvent;
+import com.vdt2025.user_service.repository.OutboxEventRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gửi các sự kiện trong bảng outbox lên Kafka theo lô.
+ * Mỗi lô được khóa (SKIP LOCKED), gửi hết rồi chờ broker xác nhận, sau đó mới xóa trong cùng transaction;
+ * lỗi giữa chừng thì transaction rollback và lô được gửi lại ở lượt sau (at-least-once).
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class OutboxRelay {
+    OutboxEventRepository outboxEventRepository;
+    KafkaTemplate<String, Object> kafkaTemplate;
+    ObjectMapper objectMapper;
+    TransactionTemplate transactionTemplate;
+
+    @NonFinal
+    @Value("${app.outbox.batch-size:500}")
+    int batchSize;
+
+    @NonFinal
+    @Value("${app.outbox.send-timeout:PT30S}")
+    Duration sendTimeout;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT0.5S}")
+    public void relay() {
+        try {
+            // Gửi liên tục khi còn tồn đọng, dừng khi lô cuối không đầy
+            Integer sent;
+            do {
+                sent = transactionTemplate.execute(status -> publishBatch());
+            } while (sent != null && sent == batchSize);
+        } catch (Exception e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockNextBatch(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<?>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Object payload = readPayload(event);
+            // Payload không đọc được thì không bao giờ gửi được, bỏ qua để không chặn hàng đợi
+            if (payload != null) {
+                futures.add(kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload));
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Kafka did not acknowledge outbox batch", e);
+        }
+        outboxEventRepository.deleteAllInBatch(events);
+        log.debug("Relayed {} outbox events", events.size());
+        return events.size();
+    }
+
+    private Object readPayload(OutboxEvent event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+        } catch (Exception e) {
+            log.error("Dropping unreadable outbox event {} of type {}", event.getId(), event.getPayloadType(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.vdt2025.user_service.service;
+
+import com.vdt2025.user_service.entity.InvalidatedToken;
+import com.vdt2025.user_service.repository.InvalidatedTokenRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục trong bộ nhớ của các JWT đã bị thu hồi, khóa theo jwtId.
+ * Câu trả lời phổ biến "token chưa bị thu hồi" được trả lời mà không cần truy vấn cơ sở dữ liệu.
+ * Bảng invalidated_token vẫn là nguồn dữ liệu gốc: chỉ mục được nạp lại định kỳ
+ * để các instance khác của user-service cũng thấy được các lần đăng xuất.
+ * Mỗi token bị thu hồi còn được ghi vào Redis (khóa có TTL đến lúc token hết hạn)
+ * để api-gateway từ chối token ngay tại cửa vào mà không cần hỏi user-service.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TokenRevocationIndex implements SmartInitializingSingleton {
+    final InvalidatedTokenRepository invalidatedTokenRepository;
+    final StringRedisTemplate redisTemplate;
+    // jwtId -> thời điểm token không còn dùng được nữa (kể cả để làm mới)
+    final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${jwt.refreshable-duration}")
+    protected long REFRESHABLE_DURATION;
+
+    @NonFinal
+    @Value("${app.token-revocation.redis-key-prefix:jwt:revoked:}")
+    protected String redisKeyPrefix;
+
+    // Nạp toàn bộ token đã thu hồi sau khi các bean được tạo, trước khi web server nhận request:
+    // nếu đợi ApplicationReadyEvent, token thu hồi trước lúc khởi động lại vẫn qua được introspect/refresh
+    @Override
+    public void afterSingletonsInstantiated() {
+        seed();
+    }
+
+    public void seed() {
+        reload();
+        // Khôi phục tập thu hồi dùng chung nếu Redis bị xóa dữ liệu hoặc khởi động lại
+        invalidatedTokenRepository.findByExpiryDateAfter(new Date())
+                .forEach(token -> publish(token.getId(), token.getExpiryDate()));
+        log.info("Token revocation index seeded with {} entries", revoked.size());
+    }
+
+    public boolean isRevoked(String jwtId) {
+        return Objects.nonNull(jwtId) && revoked.containsKey(jwtId);
+    }
+
+    // Ghi nhận token bị thu hồi và lưu xuống cơ sở dữ liệu
+    public void revoke(String jwtId, Date expiryDate) {
+        invalidatedTokenRepository.save(InvalidatedToken.builder()
+                .id(jwtId)
+                .expiryDate(expiryDate)
+                .build());
+        revoked.put(jwtId, retainUntil(expiryDate));
+        publish(jwtId, expiryDate);
+    }
+
+    // Đồng bộ lại với cơ sở dữ liệu để nhận các token bị thu hồi trên instance khác
+    @Scheduled(fixedDelayString = "${app.token-revocation.resync-interval:PT30S}",
+            initialDelayString = "${app.token-revocation.resync-interval:PT30S}")
+    public void reload() {
+        invalidatedTokenRepository.findByExpiryDateAfter(cutoff())
+                .forEach(token -> revoked.put(token.getId(), retainUntil(token.getExpiryDate())));
+    }
+
+    // Dọn các token đã quá thời gian làm mới: chúng sẽ bị verifyToken từ chối vì hết hạn
+    @Scheduled(cron = "${app.token-revocation.purge-cron:0 0 * * * *}")
+    @Transactional
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        revoked.values().removeIf(retainUntil -> retainUntil.isBefore(now));
+        int deleted = invalidatedTokenRepository.deleteExpiredBefore(cutoff());
+        log.info("Purged {} expired invalidated tokens", deleted);
+    }
+
+    // Gateway chỉ nhận token chưa hết hạn, nên khóa Redis chỉ cần sống đến exp của token.
+    // Redis lỗi không làm hỏng đăng xuất: bảng invalidated_token vẫn là nguồn gốc cho user-service
+    private void publish(String jwtId, Date expiryDate) {
+        Duration ttl = Duration.between(Instant.now(), expiryDate.toInstant());
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKeyPrefix + jwtId, "1", ttl);
+        } catch (RuntimeException ex) {
+            log.warn("Could not publish revoked token {} to Redis", jwtId, ex);
+        }
+    }
+
+    // Token có thể được làm mới sau khi hết hạn, nên phải giữ thêm REFRESHABLE_DURATION
+    private Instant retainUntil(Date expiryDate) {
+        return expiryDate.toInstant().plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS);
+    }
+
+    private Date cutoff() {
+        return Date.from(Instant.now().minus(REFRESHABLE_DURATION, ChronoUnit.SECONDS));
+    }
+}
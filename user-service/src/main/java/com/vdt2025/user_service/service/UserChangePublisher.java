@@ -0,0 +1,44 @@
+package com.vdt2025.user_service.service;
+
+import com.vdt2025.common_dto.dto.UserChangedEvent;
+import com.vdt2025.user_service.entity.User;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Thông báo cho các service khác khi thông tin người dùng thay đổi (vai trò, trạng thái, hồ sơ)
+ * để họ xóa bản sao người dùng đang được cache cục bộ.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserChangePublisher {
+    public static final String USER_CHANGED_TOPIC = "user-changed-topic";
+
+    KafkaTemplate<String, Object> kafkaTemplate;
+    CacheManager cacheManager;
+
+    public void userChanged(User user) {
+        // Xóa cache của chính user-service trước, nếu không các service khác sẽ lại đọc phải dữ liệu cũ
+        Cache userCache = cacheManager.getCache("userCache");
+        if (Objects.nonNull(userCache)) {
+            userCache.evict(user.getUsername());
+        }
+
+        UserChangedEvent event = UserChangedEvent.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .build();
+        kafkaTemplate.send(USER_CHANGED_TOPIC, user.getUsername(), event);
+        log.info("Published user changed event for user {}", user.getUsername());
+    }
+}
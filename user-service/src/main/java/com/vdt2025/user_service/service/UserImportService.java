@@ -0,0 +1,393 @@
+package com.vdt2025.user_service.service;
+
+import com.vdt2025.common_dto.dto.UserCreatedEvent;
+import com.vdt2025.user_service.dto.request.user.UserCreationRequest;
+import com.vdt2025.user_service.dto.response.ImportRowError;
+import com.vdt2025.user_service.dto.response.UserImportResponse;
+import com.vdt2025.user_service.entity.Role;
+import com.vdt2025.user_service.entity.User;
+import com.vdt2025.user_service.exception.AppException;
+import com.vdt2025.user_service.exception.ErrorCode;
+import com.vdt2025.user_service.mapper.UserMapper;
+import com.vdt2025.user_service.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Nhập người dùng từ Excel với bộ nhớ giới hạn:
+ * - Đọc sheet bằng SAX (XSSFReader) thay vì dựng cả workbook, xử lý theo từng phần CHUNK_SIZE dòng.
+ * - Kiểm tra trùng username/email/phone bằng truy vấn theo tập, trong file và với DB.
+ * - Băm mật khẩu song song trên pool riêng (BCrypt là phần tốn CPU nhất), mỗi mật khẩu chỉ băm một lần.
+ * - Ghi bằng lô JDBC (hibernate.jdbc.batch_size), sự kiện chào mừng ghi vào outbox trong cùng transaction.
+ * - Dòng lỗi được ghi vào báo cáo, không làm dừng cả file.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class UserImportService {
+    static final int CHUNK_SIZE = 500;
+    static final String MIN_ATTRIBUTE = "min";
+
+    UserRepository userRepository;
+    UserMapper userMapper;
+    UserServiceImp userService;
+    PasswordEncoder passwordEncoder;
+    Validator validator;
+    OutboxService outboxService;
+    TransactionTemplate transactionTemplate;
+    EntityManager entityManager;
+
+    @NonFinal
+    @Value("${app.user-import.max-reported-errors:1000}")
+    int maxReportedErrors;
+
+    @NonFinal
+    ExecutorService hashExecutor;
+
+    @PostConstruct
+    public void init() {
+        hashExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdown();
+    }
+
+    public UserImportResponse importUsers(InputStream inputStream) {
+        ImportReport report = new ImportReport(maxReportedErrors);
+        Role guestRole = userService.getOrCreateGuestRole();
+        List<ImportRow> buffer = new ArrayList<>(CHUNK_SIZE);
+
+        try (OPCPackage pkg = OPCPackage.open(inputStream)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return report.toResponse();
+            }
+            SheetHandler handler = new SheetHandler(row -> {
+                buffer.add(row);
+                if (buffer.size() == CHUNK_SIZE) {
+                    processChunk(buffer, guestRole, report);
+                    buffer.clear();
+                }
+            });
+            try (InputStream sheet = sheets.next()) {
+                XMLReader xmlReader = XMLHelper.newXMLReader();
+                xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                        reader.getStylesTable(), null, strings, handler, new IsoDateFormatter(), false));
+                xmlReader.parse(new InputSource(sheet));
+            }
+            if (!buffer.isEmpty()) {
+                processChunk(buffer, guestRole, report);
+            }
+        } catch (AppException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error reading Excel import after {} rows", report.total, e);
+            throw new AppException(ErrorCode.EXCEL_IMPORT_ERROR);
+        }
+
+        log.info("Imported {} of {} users from Excel", report.succeeded, report.total);
+        return report.toResponse();
+    }
+
+    private void processChunk(List<ImportRow> rows, Role guestRole, ImportReport report) {
+        report.total += rows.size();
+
+        // 1. Kiểm tra dữ liệu từng dòng và trùng trong chính phần đang xử lý
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenPhones = new HashSet<>();
+        List<ImportRow> candidates = new ArrayList<>();
+        for (ImportRow row : rows) {
+            RowFailure failure = validate(row);
+            if (failure != null) {
+                report.fail(row, failure.errorCode(), failure.message());
+            } else if (!seenUsernames.add(row.request.getUsername())
+                    || !seenEmails.add(row.request.getEmail())
+                    || !seenPhones.add(row.request.getPhone())) {
+                report.fail(row, ErrorCode.DUPLICATE_IN_IMPORT);
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // 2. Trùng với DB (các phần trước đã commit nên trùng giữa các phần cũng được phát hiện ở đây)
+        Set<String> existingUsernames = new HashSet<>(userRepository.findExistingUsernames(seenUsernames));
+        Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(seenEmails));
+        Set<String> existingPhones = new HashSet<>(userRepository.findExistingPhones(seenPhones));
+        List<ImportRow> accepted = new ArrayList<>();
+        for (ImportRow row : candidates) {
+            if (existingUsernames.contains(row.request.getUsername())) {
+                report.fail(row, ErrorCode.USER_EXISTED);
+            } else if (existingEmails.contains(row.request.getEmail())) {
+                report.fail(row, ErrorCode.EMAIL_EXISTED);
+            } else if (existingPhones.contains(row.request.getPhone())) {
+                report.fail(row, ErrorCode.PHONE_EXISTED);
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 3. Băm mật khẩu song song
+        List<CompletableFuture<User>> futures = accepted.stream()
+                .map(row -> CompletableFuture.supplyAsync(() -> toUser(row.request, guestRole), hashExecutor))
+                .toList();
+        List<User> users = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        // 4. Ghi cả phần trong một transaction; nếu lỗi (trùng do ghi song song) thì ghi từng dòng để tìm dòng hỏng
+        List<User> saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                List<User> result = userRepository.saveAll(users);
+                result.forEach(this::enqueueWelcomeEvent);
+                flushAndClear();
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch insert of {} users failed, retrying row by row: {}", users.size(), e.getMessage());
+            saved = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                // Bỏ id đã sinh trong lượt ghi bị rollback để bản ghi được thêm mới
+                user.setId(null);
+                try {
+                    saved.add(transactionTemplate.execute(status -> {
+                        User result = userRepository.saveAndFlush(user);
+                        enqueueWelcomeEvent(result);
+                        return result;
+                    }));
+                } catch (DataIntegrityViolationException ex) {
+                    report.fail(accepted.get(i), duplicateErrorOf(ex));
+                }
+            }
+        }
+        report.succeeded += saved.size();
+    }
+
+    // Sự kiện chào mừng được ghi vào outbox cùng transaction với người dùng, OutboxRelay gửi theo lô
+    private void enqueueWelcomeEvent(User user) {
+        outboxService.enqueue(UserServiceImp.WELCOME_EMAIL_TOPIC, user.getId(), UserCreatedEvent.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .build());
+    }
+
+    private User toUser(UserCreationRequest request, Role guestRole) {
+        User user = userMapper.toUser(request);
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setRole(guestRole);
+        user.setEnabled(true);
+        return user;
+    }
+
+    // Dùng các ràng buộc của UserCreationRequest, email và phone là bắt buộc theo bảng users
+    private RowFailure validate(ImportRow row) {
+        if (row.invalidDob()) {
+            return new RowFailure(ErrorCode.INVALID_DOB, "Date of birth must be a date or yyyy-MM-dd");
+        }
+        UserCreationRequest request = row.request();
+        Set<ConstraintViolation<UserCreationRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<UserCreationRequest> violation = violations.iterator().next();
+            try {
+                ErrorCode errorCode = ErrorCode.valueOf(violation.getMessage());
+                Object min = violation.getConstraintDescriptor().getAttributes().get(MIN_ATTRIBUTE);
+                return new RowFailure(errorCode,
+                        errorCode.getMessage().replace("{" + MIN_ATTRIBUTE + "}", String.valueOf(min)));
+            } catch (IllegalArgumentException e) {
+                return new RowFailure(ErrorCode.INVALID_KEY, ErrorCode.INVALID_KEY.getMessage());
+            }
+        }
+        if (request.getEmail() == null) {
+            return new RowFailure(ErrorCode.INVALID_EMAIL, ErrorCode.INVALID_EMAIL.getMessage());
+        }
+        if (request.getPhone() == null) {
+            return new RowFailure(ErrorCode.INVALID_PHONE, ErrorCode.INVALID_PHONE.getMessage());
+        }
+        return null;
+    }
+
+    // Giải phóng persistence context sau mỗi phần để bộ nhớ không tăng theo số dòng.
+    // Flush qua repository để lỗi ràng buộc được Spring chuyển thành DataIntegrityViolationException
+    private void flushAndClear() {
+        userRepository.flush();
+        entityManager.clear();
+    }
+
+    /*
+     * Chọn mã lỗi theo cột bị trùng, dựa vào tên ràng buộc unique (Postgres đặt users_email_key, users_phone_key)
+     * và thông điệp của Postgres ("Key (email)=(...) already exists").
+     */
+    static ErrorCode duplicateErrorOf(DataIntegrityViolationException e) {
+        StringBuilder source = new StringBuilder();
+        for (Throwable cause = e; cause != null && cause.getCause() != cause; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                source.append(violation.getConstraintName()).append(' ');
+            }
+            if (cause.getMessage() != null) {
+                source.append(cause.getMessage()).append(' ');
+            }
+        }
+        String text = source.toString().toLowerCase(Locale.ROOT);
+        if (text.contains("(email)") || text.contains("email_key")) {
+            return ErrorCode.EMAIL_EXISTED;
+        }
+        if (text.contains("(phone)") || text.contains("phone_key")) {
+            return ErrorCode.PHONE_EXISTED;
+        }
+        return ErrorCode.USER_EXISTED;
+    }
+
+    private record RowFailure(ErrorCode errorCode, String message) {
+    }
+
+    private record ImportRow(int rowNumber, UserCreationRequest request, boolean invalidDob) {
+    }
+
+    // Gom giá trị các ô của một dòng rồi chuyển thành UserCreationRequest
+    private static class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        static final int COLUMNS = 7;
+
+        final Consumer<ImportRow> sink;
+        String[] values;
+        int nextColumn;
+
+        SheetHandler(Consumer<ImportRow> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            values = new String[COLUMNS];
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            nextColumn = column + 1;
+            if (column < COLUMNS && formattedValue != null && !formattedValue.isBlank()) {
+                values[column] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            // Bỏ qua dòng tiêu đề và dòng trống
+            if (rowNum == 0 || Arrays.stream(values).allMatch(Objects::isNull)) {
+                return;
+            }
+            UserCreationRequest request = new UserCreationRequest();
+            request.setUsername(values[0]);
+            request.setPassword(values[1]);
+            request.setFirstName(values[2]);
+            request.setLastName(values[3]);
+            boolean invalidDob = false;
+            if (values[4] != null) {
+                try {
+                    request.setDob(LocalDate.parse(values[4]));
+                } catch (DateTimeParseException e) {
+                    // Báo lỗi INVALID_DOB khi kiểm tra dòng
+                    invalidDob = true;
+                }
+            }
+            request.setEmail(values[5]);
+            request.setPhone(values[6]);
+            sink.accept(new ImportRow(rowNum + 1, request, invalidDob));
+        }
+    }
+
+    // Ô ngày được định dạng ISO (yyyy-MM-dd) thay vì theo định dạng hiển thị của file
+    private static class IsoDateFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value).toLocalDate().toString();
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString);
+        }
+    }
+
+    private static class ImportReport {
+        final int maxReportedErrors;
+        final List<ImportRowError> errors = new ArrayList<>();
+        int total;
+        int succeeded;
+        int failed;
+
+        ImportReport(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void fail(ImportRow row, ErrorCode errorCode) {
+            fail(row, errorCode, errorCode.getMessage());
+        }
+
+        void fail(ImportRow row, ErrorCode errorCode, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(ImportRowError.builder()
+                        .row(row.rowNumber())
+                        .username(row.request().getUsername())
+                        .code(errorCode.getCode())
+                        .message(message)
+                        .build());
+            }
+        }
+
+        UserImportResponse toResponse() {
+            return UserImportResponse.builder()
+                    .total(total)
+                    .succeeded(succeeded)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+    }
+}
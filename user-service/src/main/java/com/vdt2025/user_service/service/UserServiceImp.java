@@ -20,7 +20,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -32,33 +32,30 @@ import org.springframework.web.multipart.MultipartFile;
 @Slf4j
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class UserServiceImp implements UserService{
+    public static final String WELCOME_EMAIL_TOPIC = "welcome-email-topic";
+
     RoleRepository roleRepository;
     UserRepository userRepository;
     UserMapper userMapper;
     PasswordEncoder passwordEncoder;
     FileServiceClient fileServiceClient;
-    KafkaTemplate<String, Object> kafkaTemplate;
+    OutboxService outboxService;
+    UserChangePublisher userChangePublisher;
     // FileStorageService fileStorageService;
 
+    // Người dùng và sự kiện chào mừng (outbox) được ghi trong cùng một transaction
     @Override
+    @Transactional
     public UserResponse createUser(UserCreationRequest request) {
         User user = userMapper.toUser(request);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
-        // Kiểm tra xem vai trò đã được định nghĩa chưa, nếu chưa thì tạo mới
-        if (roleRepository.findById(PredefinedRole.GUEST_ROLE).isEmpty()) {
-            Role guestRole = new Role();
-            guestRole.setName(PredefinedRole.GUEST_ROLE);
-            guestRole.setDescription("Guest role to be assigned to new users. Can view products and categories.");
-            roleRepository.save(guestRole);
-        }
         // Gán vai trò cho người dùng
-        user.setRole(roleRepository.findById(PredefinedRole.GUEST_ROLE)
-                .orElseThrow(() -> new AppException(ErrorCode.ROLE_NOT_FOUND)));
+        user.setRole(getOrCreateGuestRole());
         // Gán trạng thái kích hoạt cho người dùng
         user.setEnabled(true);
         // Lưu người dùng vào cơ sở dữ liệu
         try {
-            user = userRepository.save(user);
+            user = userRepository.saveAndFlush(user);
         } catch (DataIntegrityViolationException e) {
             throw new AppException(ErrorCode.USER_EXISTED);
         }
@@ -67,11 +64,21 @@ public class UserServiceImp implements UserService{
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .build();
-        kafkaTemplate.send("welcome-email-topic", event);
+        outboxService.enqueue(WELCOME_EMAIL_TOPIC, user.getId(), event);
         log.info("User {} created successfully with ID {}", user.getUsername(), user.getId());
         return userMapper.toUserResponse(user);
     }
 
+    // Vai trò mặc định của người dùng mới, tạo nếu chưa được định nghĩa
+    public Role getOrCreateGuestRole() {
+        return roleRepository.findById(PredefinedRole.GUEST_ROLE).orElseGet(() -> {
+            Role guestRole = new Role();
+            guestRole.setName(PredefinedRole.GUEST_ROLE);
+            guestRole.setDescription("Guest role to be assigned to new users. Can view products and categories.");
+            return roleRepository.save(guestRole);
+        });
+    }
+
     @Override
     @Cacheable(value = "userCache",
             key = "T(org.springframework.security.core.context.SecurityContextHolder).getContext().getAuthentication().getName()")
@@ -138,6 +145,7 @@ public class UserServiceImp implements UserService{
         String fileName = fileServiceClient.uploadFile(file).getResult();
         user.setAvatarName(fileName);
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
         return fileName;
     }
 
@@ -162,6 +170,7 @@ public class UserServiceImp implements UserService{
         } catch (DataIntegrityViolationException e) {
             throw new AppException(ErrorCode.DATA_INTEGRITY_VIOLATION);
         }
+        userChangePublisher.userChanged(user);
         log.info("User {} updated their information successfully", username);
         return userMapper.toUserResponse(user);
     }
@@ -175,6 +184,7 @@ public class UserServiceImp implements UserService{
         // Đặt trạng thái người dùng là không hoạt động
         user.setEnabled(false);
         userRepository.save(user);
+        userChangePublisher.userChanged(user);
         log.info("User {} disabled their account successfully", username);
         return "Account disabled successfully";
     }
@@ -0,0 +1,205 @@
+package com.vdt2025.user_service.service;
+
+import com.vdt2025.user_service.dto.request.user.UserCreationRequest;
+import com.vdt2025.user_service.dto.response.ImportRowError;
+import com.vdt2025.user_service.dto.response.UserImportResponse;
+import com.vdt2025.user_service.entity.Role;
+import com.vdt2025.user_service.entity.User;
+import com.vdt2025.user_service.exception.ErrorCode;
+import com.vdt2025.user_service.mapper.UserMapper;
+import com.vdt2025.user_service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceTests {
+    static final String[] HEADER = {"username", "password", "firstName", "lastName", "dob", "email", "phone"};
+
+    @Mock
+    UserRepository userRepository;
+    @Mock
+    UserMapper userMapper;
+    @Mock
+    UserServiceImp userService;
+    @Mock
+    PasswordEncoder passwordEncoder;
+    @Mock
+    OutboxService outboxService;
+    @Mock
+    TransactionTemplate transactionTemplate;
+    @Mock
+    EntityManager entityManager;
+
+    ValidatorFactory validatorFactory;
+    UserImportService userImportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        userImportService = new UserImportService(userRepository, userMapper, userService, passwordEncoder,
+                validatorFactory.getValidator(), outboxService, transactionTemplate, entityManager);
+        ReflectionTestUtils.setField(userImportService, "maxReportedErrors", 100);
+        userImportService.init();
+
+        lenient().when(userService.getOrCreateGuestRole()).thenReturn(Role.builder().name("GUEST").build());
+        lenient().when(userMapper.toUser(any(UserCreationRequest.class))).thenAnswer(invocation -> {
+            UserCreationRequest request = invocation.getArgument(0);
+            return User.builder()
+                    .username(request.getUsername())
+                    .email(request.getEmail())
+                    .phone(request.getPhone())
+                    .build();
+        });
+        lenient().when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(mock(TransactionStatus.class)));
+        lenient().when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId("id-" + user.getUsername()));
+            return users;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.shutdown();
+        validatorFactory.close();
+    }
+
+    @Test
+    void reportsEveryRejectedRowAndImportsTheRest() throws Exception {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of("carol"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("bob@example.com"));
+        when(userRepository.findExistingPhones(anyCollection())).thenReturn(List.of());
+
+        UserImportResponse response = userImportService.importUsers(workbook(
+                row("alice", "password1", "2000-01-15", "alice@example.com", "0900000001"),
+                row("eve", "password1", "not-a-date", "eve@example.com", "0900000002"),
+                row("young", "password1", "2020-05-01", "young@example.com", "0900000003"),
+                row("alice", "password1", "2000-01-15", "alice2@example.com", "0900000004"),
+                row("bob", "password1", "1999-03-03", "bob@example.com", "0900000005"),
+                row("carol", "password1", "1998-04-04", "carol@example.com", "0900000006"),
+                row("dave", "password1", "1997-05-05", "dave@example.com", "0900000007")));
+
+        assertThat(response.getTotal()).isEqualTo(7);
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(5);
+        Map<Integer, Integer> codeByRow = errorCodesByRow(response);
+        assertThat(codeByRow).containsExactlyInAnyOrderEntriesOf(Map.of(
+                3, ErrorCode.INVALID_DOB.getCode(),
+                4, ErrorCode.INVALID_DOB.getCode(),
+                5, ErrorCode.DUPLICATE_IN_IMPORT.getCode(),
+                6, ErrorCode.EMAIL_EXISTED.getCode(),
+                7, ErrorCode.USER_EXISTED.getCode()));
+        assertThat(response.getErrors())
+                .filteredOn(error -> error.getRow() == 4)
+                .extracting(ImportRowError::getMessage)
+                .containsExactly("User must be at least 16 years old");
+    }
+
+    @Test
+    void fallsBackToRowByRowWhenChunkHitsConcurrentDuplicate() throws Exception {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingPhones(anyCollection())).thenReturn(List.of());
+        // Một người dùng cùng số điện thoại được tạo song song sau bước kiểm tra
+        doThrow(duplicate("users_phone_key", "Key (phone)=(0900000002) already exists."))
+                .when(userRepository).flush();
+        when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if ("0900000002".equals(user.getPhone())) {
+                throw duplicate("users_phone_key", "Key (phone)=(0900000002) already exists.");
+            }
+            user.setId("id-" + user.getUsername());
+            return user;
+        });
+
+        UserImportResponse response = userImportService.importUsers(workbook(
+                row("alice", "password1", "2000-01-15", "alice@example.com", "0900000001"),
+                row("bob", "password1", "1999-03-03", "bob@example.com", "0900000002"),
+                row("carol", "password1", "1998-04-04", "carol@example.com", "0900000003")));
+
+        assertThat(response.getSucceeded()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(errorCodesByRow(response)).containsExactly(Map.entry(3, ErrorCode.PHONE_EXISTED.getCode()));
+    }
+
+    @Test
+    void duplicateErrorFollowsTheViolatedColumn() {
+        assertThat(UserImportService.duplicateErrorOf(duplicate("users_email_key", "Key (email)=(a@b.c) already exists.")))
+                .isEqualTo(ErrorCode.EMAIL_EXISTED);
+        assertThat(UserImportService.duplicateErrorOf(duplicate("users_phone_key", "Key (phone)=(0900000000) already exists.")))
+                .isEqualTo(ErrorCode.PHONE_EXISTED);
+        assertThat(UserImportService.duplicateErrorOf(duplicate("users_username_key", "Key (username)=(bob) already exists.")))
+                .isEqualTo(ErrorCode.USER_EXISTED);
+    }
+
+    private static DataIntegrityViolationException duplicate(String constraint, String detail) {
+        SQLException sqlException = new SQLException(
+                "ERROR: duplicate key value violates unique constraint \"" + constraint + "\"\n  Detail: " + detail, "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, constraint));
+    }
+
+    private static Map<Integer, Integer> errorCodesByRow(UserImportResponse response) {
+        return response.getErrors().stream().collect(Collectors.toMap(ImportRowError::getRow, ImportRowError::getCode));
+    }
+
+    private static String[] row(String username, String password, String dob, String email, String phone) {
+        return new String[]{username, password, "First", "Last", dob, email, phone};
+    }
+
+    private static InputStream workbook(String[]... rows) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("Users");
+            write(sheet.createRow(0), HEADER);
+            for (int i = 0; i < rows.length; i++) {
+                write(sheet.createRow(i + 1), rows[i]);
+            }
+            workbook.write(out);
+            return new ByteArrayInputStream(out.toByteArray());
+        }
+    }
+
+    private static void write(Row row, String[] values) {
+        for (int column = 0; column < values.length; column++) {
+            row.createCell(column).setCellValue(values[column]);
+        }
+    }
+}